@@ -0,0 +1,210 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds out what can be said about a position without touching a board:
+ * which blocks are safe, which ones are mines and how likely the others are to be a mine
+ * <p>
+ * Uses the same rules as the solver, first the single numbers and then the tank.
+ * The position is left like it was.
+ */
+class Analyzer {
+
+    /**
+     * What we know about a position
+     */
+    static class Analysis {
+
+        final ArrayList<Point> safe = new ArrayList<>();
+        final ArrayList<Point> mines = new ArrayList<>();
+        final ArrayList<Point> unsure = new ArrayList<>();
+        final ArrayList<Double> probabilities = new ArrayList<>(); // of the unsure blocks being a mine
+        double others = Double.NaN; // for closed blocks which aren't next to a number, NaN if unknown
+        boolean possible = true;
+        long micros;
+
+        /**
+         * Coordinates start at 0, x is the column and y the row
+         *
+         * @return the analysis as one line of JSON
+         */
+        String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"possible\":").append(possible);
+            appendBlocks(json.append(",\"safe\":"), safe);
+            appendBlocks(json.append(",\"mines\":"), mines);
+
+            json.append(",\"probabilities\":[");
+            for (int i = 0; i < unsure.size(); i++) {
+                Point block = unsure.get(i);
+                if (i > 0) json.append(',');
+                json.append(String.format(Locale.ROOT, "{\"x\":%d,\"y\":%d,\"p\":%.4f}", block.x, block.y, probabilities.get(i)));
+            }
+            json.append(']');
+
+            json.append(",\"others\":").append(Double.isNaN(others) ? "null" : String.format(Locale.ROOT, "%.4f", others));
+            json.append(",\"micros\":").append(micros).append('}');
+            return json.toString();
+        }
+
+        private static void appendBlocks(StringBuilder json, List<Point> blocks) {
+            json.append('[');
+            for (int i = 0; i < blocks.size(); i++) {
+                if (i > 0) json.append(',');
+                json.append('[').append(blocks.get(i).x).append(',').append(blocks.get(i).y).append(']');
+            }
+            json.append(']');
+        }
+
+    }
+
+    private final Field field;
+    private final int countMines;
+    private final Tank tank;
+
+    // The blocks we already know to be safe
+    private final boolean[] safe;
+
+    Analyzer(Position position) {
+        field = position.getField();
+        countMines = position.getCountMines();
+        tank = new Tank(field);
+        safe = new boolean[field.getCountColumn() * field.getCountRow()];
+    }
+
+    Analysis analyze() {
+        long time = System.nanoTime();
+        Analysis analysis = new Analysis();
+        int countRow = field.getCountRow();
+
+        // First: the single numbers, flagging the mines we find until nothing changes anymore
+        boolean changed = true;
+        while (changed && analysis.possible) {
+            changed = false;
+
+            for (int i = field.getCountUnsolved() - 1; i >= 0; i--) {
+                if (i >= field.getCountUnsolved()) continue;
+                int x = field.getUnsolvedX(i), y = field.getUnsolvedY(i);
+
+                int countClosed = field.getClosedAround(x, y);
+                int countFlagged = field.getFlagsAround(x, y);
+                int countMinesAround = field.get(x, y).getVal();
+
+                if (countMinesAround > countClosed + countFlagged || countMinesAround < countFlagged) {
+                    analysis.possible = false;
+                    break;
+                }
+
+                if (countMinesAround == countClosed + countFlagged) {
+                    forEachClosed(x, y, (cx, cy) -> {
+                        // Another number already said it's safe, or one around gets too many flags now
+                        // (that one might have no closed blocks left, so it won't be looked at again)
+                        if (safe[cx * countRow + cy]) analysis.possible = false;
+                        field.set(cx, cy, State.BLOCK_FLAG);
+                        if (hasTooManyFlagsAround(cx, cy)) analysis.possible = false;
+                        analysis.mines.add(new Point(cx, cy));
+                    });
+                    changed = true;
+                } else if (countMinesAround == countFlagged) {
+                    forEachClosed(x, y, (cx, cy) -> {
+                        if (safe[cx * countRow + cy]) return;
+                        safe[cx * countRow + cy] = true;
+                        analysis.safe.add(new Point(cx, cy));
+                    });
+                }
+            }
+        }
+
+        if (countMines >= 0 && field.getCountFlags() > countMines) analysis.possible = false;
+
+        // Second: the tank for everything that's left
+        if (analysis.possible) {
+            double frontierMines = 0;
+            int frontierBlocks = 0;
+
+            for (Tank.Region region : tank.solveFrontier(countMines)) {
+                if (region.solutions == 0) {
+                    analysis.possible = false;
+                    break;
+                }
+
+                for (int i = 0; i < region.blocks.size(); i++) {
+                    Point block = region.blocks.get(i);
+                    frontierBlocks++;
+
+                    double probability = region.mineCounts[i] / region.solutions;
+                    frontierMines += probability;
+
+                    if (region.mineCounts[i] == region.solutions) analysis.mines.add(block);
+                    else if (region.mineCounts[i] == 0) {
+                        if (safe[block.x * countRow + block.y]) continue;
+                        safe[block.x * countRow + block.y] = true;
+                        analysis.safe.add(block);
+                    } else {
+                        analysis.unsure.add(block);
+                        analysis.probabilities.add(probability);
+                    }
+                }
+            }
+
+            // The rest of the mines are somewhere in the other blocks, this ignores that
+            // some counts are more likely than others, but it's close enough to pick a guess
+            int countOthers = field.getCountClosed() - frontierBlocks;
+            if (analysis.possible && countMines >= 0 && countOthers > 0)
+                analysis.others = Math.max(0, Math.min(1, (countMines - field.getCountFlags() - frontierMines) / countOthers));
+        }
+
+        // Leave the position like we got it
+        for (Point mine : analysis.mines)
+            if (field.get(mine.x, mine.y) == State.BLOCK_FLAG) field.set(mine.x, mine.y, State.BLOCK_CLOSED);
+        for (Point block : analysis.safe) safe[block.x * countRow + block.y] = false;
+
+        analysis.micros = (System.nanoTime() - time) / 1000;
+        return analysis;
+    }
+
+    /**
+     * @return true if a number around the block has more flags around it than it says
+     */
+    private boolean hasTooManyFlagsAround(int x, int y) {
+        for (int nx = Math.max(0, x - 1); nx <= Math.min(field.getCountColumn() - 1, x + 1); nx++)
+            for (int ny = Math.max(0, y - 1); ny <= Math.min(field.getCountRow() - 1, y + 1); ny++)
+                if (field.get(nx, ny).getVal() >= 0 && field.getFlagsAround(nx, ny) > field.get(nx, ny).getVal()) return true;
+        return false;
+    }
+
+    private interface BlockConsumer {
+        void accept(int x, int y);
+    }
+
+    private void forEachClosed(int x, int y, BlockConsumer consumer) {
+        for (int cx = Math.max(0, x - 1); cx <= Math.min(field.getCountColumn() - 1, x + 1); cx++)
+            for (int cy = Math.max(0, y - 1); cy <= Math.min(field.getCountRow() - 1, y + 1); cy++)
+                if (field.get(cx, cy) == State.BLOCK_CLOSED) consumer.accept(cx, cy);
+    }
+
+}
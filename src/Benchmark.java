@@ -0,0 +1,405 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Benchmarks which run without a screen
+ * <p>
+ * Usage:
+ * java Benchmark vision &lt;png, gif or directory&gt; [repetitions] [--print]
+ * java Benchmark board [sizes...]
+ * java Benchmark pixels (add --add-modules jdk.incubator.vector to compare with the vector api)
+ * java Benchmark corpus [directory] [--update]
+ * java Benchmark warmup [runs]
+ * java Benchmark stalls
+ */
+public class Benchmark {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java Benchmark vision <png, gif or directory> [repetitions] [--print]");
+            System.err.println("       java Benchmark board [sizes...]");
+            System.err.println("       java Benchmark pixels");
+            System.err.println("       java Benchmark corpus [directory] [--update]");
+            System.err.println("       java Benchmark warmup [runs]");
+            System.err.println("       java Benchmark stalls");
+            return;
+        }
+
+        try {
+            switch (args[0]) {
+                case "vision":
+                    vision(args);
+                    break;
+                case "board":
+                    board(args);
+                    break;
+                case "pixels":
+                    pixels();
+                    break;
+                case "corpus":
+                    if (!corpus(args)) System.exit(1);
+                    break;
+                case "stalls":
+                    if (!stalls()) System.exit(1);
+                    break;
+                case "warmup":
+                    warmUp(args);
+                    break;
+                case "first":
+                    firstGame(args.length > 1 && args[1].equals("--warmup"));
+                    break;
+                default:
+                    System.err.println("Don't know the benchmark " + args[0]);
+            }
+        } catch (Board.BoardException | IOException | InterruptedException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Plays games of growing size on the in memory board, 12% of the blocks are mines
+     */
+    private static void board(String[] args) {
+        int[] sizes = {100, 250, 500, 1000};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        for (int size : sizes) {
+            for (int seed = 1; seed <= 3; seed++) {
+                MemoryBoard board = MemoryBoard.random(size, size, size * size * 12 / 100, seed);
+
+                MineSweeperSolver solver = new MineSweeperSolver(board);
+                // The solver talks a lot, which would be the only thing we measure
+                solver.setQuiet(true);
+                long time = System.nanoTime();
+                MineSweeperSolver.Result result = solver.play();
+                time = System.nanoTime() - time;
+
+                Field field = board.getField();
+                System.out.printf("%4dx%-4d seed %d: %-5s after %8.1fms, %d of %d blocks open\n", size, size, seed, result,
+                        time / 1e6, size * size - field.getCountClosed() - field.getCountFlags(), size * size);
+            }
+        }
+    }
+
+    /**
+     * Expert games in memory where the patterns once found nothing but mines at a stall,
+     * the solver got stuck there since the flags alone didn't change anything it could see
+     */
+    private static final long[] STALL_SEEDS = {11, 16, 20, 21, 23, 29, 30};
+
+    /**
+     * Plays the games of STALL_SEEDS, they may be won or lost (there are guesses) but not end up stuck
+     *
+     * @return false if one got stuck
+     */
+    private static boolean stalls() {
+        boolean passed = true;
+        for (long seed : STALL_SEEDS) {
+            MineSweeperSolver solver = new MineSweeperSolver(MemoryBoard.random(30, 16, 99, seed));
+            solver.setQuiet(true);
+            MineSweeperSolver.Result result = solver.play();
+            System.out.printf("seed %2d: %s\n", seed, result);
+            if (result == MineSweeperSolver.Result.STUCK) passed = false;
+        }
+        System.out.println(passed ? "Passed" : "FAILED");
+        return passed;
+    }
+
+    /**
+     * How much the warm-up helps the first game
+     * Every run is a new java (see firstGame), once without and once with the warm-up, the medians are printed.
+     */
+    private static void warmUp(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+
+        long[][][] results = new long[2][3][runs]; // [warm-up or not][first move, first game, warm-up][run]
+        for (int run = 0; run < runs; run++) {
+            for (int warm = 0; warm < 2; warm++) {
+                List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"), "Benchmark", "first"));
+                if (warm == 1) command.add("--warmup");
+                Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+                String line;
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    line = in.readLine();
+                }
+                if (process.waitFor() != 0 || line == null) throw new IOException("The run with" + (warm == 1 ? "" : "out") + " warm-up failed");
+
+                String[] values = line.trim().split(" ");
+                for (int i = 0; i < 3; i++) results[warm][i][run] = Long.parseLong(values[i]);
+            }
+        }
+
+        for (long[][] result : results) for (long[] values : result) Arrays.sort(values);
+        System.out.printf("without warm-up: first move after %6.2fms, first game %6.2fms\n",
+                results[0][0][runs / 2] / 1e6, results[0][1][runs / 2] / 1e6);
+        System.out.printf("with warm-up:    first move after %6.2fms, first game %6.2fms, the warm-up took %dms\n",
+                results[1][0][runs / 2] / 1e6, results[1][1][runs / 2] / 1e6, results[1][2][runs / 2]);
+    }
+
+    /**
+     * The first game in a fresh java, run by warmUp
+     * Prints the ns until the first move after the corners were opened, the ns of the whole game and the ms of the warm-up.
+     */
+    private static void firstGame(boolean warm) throws InterruptedException {
+        long warmUpTime = warm ? WarmUp.start().finish().getTime() : 0;
+
+        MemoryBoard random = MemoryBoard.random(30, 16, 99, 1);
+        boolean[][] mines = new boolean[random.getCountColumn()][random.getCountRow()];
+        for (int x = 0; x < mines.length; x++)
+            for (int y = 0; y < mines[x].length; y++) mines[x][y] = random.isMine(x, y);
+
+        long[] firstMove = new long[1];
+        MemoryBoard game = new MemoryBoard(mines) {
+            private int clicks;
+
+            @Override
+            protected void click(int x, int y, int button) {
+                if (++clicks == 5) firstMove[0] = System.nanoTime(); // the 4 before are the corners
+                super.click(x, y, button);
+            }
+        };
+        MineSweeperSolver solver = new MineSweeperSolver(game);
+        solver.setQuiet(true);
+
+        long start = System.nanoTime();
+        solver.play();
+        long end = System.nanoTime();
+
+        System.out.println((firstMove[0] - start) + " " + (end - start) + " " + warmUpTime);
+    }
+
+    /**
+     * Replays the positions of the corpus (resources/corpus by default) through the solver
+     * <p>
+     * Every &lt;class&gt;.txt holds positions, &lt;class&gt;.expected what the solver has to find in them (one line per position)
+     * and thresholds.properties the slowest &lt;class&gt;.p99 and &lt;class&gt;.max a position may take, in ms.
+     * Each position is solved REPETITIONS times and the median counts.
+     * With --update the expected deductions are written instead of checked.
+     *
+     * @return false if a deduction was wrong or a class was too slow
+     */
+    private static boolean corpus(String[] args) throws IOException {
+        File directory = new File(args.length > 1 && !args[1].startsWith("--") ? args[1] : "resources/corpus");
+        boolean update = args[args.length - 1].equals("--update");
+        final int REPETITIONS = 5;
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null || files.length == 0) throw new IOException("There is no corpus in " + directory);
+        Arrays.sort(files);
+
+        Properties thresholds = new Properties();
+        File thresholdsFile = new File(directory, "thresholds.properties");
+        if (thresholdsFile.exists()) {
+            try (Reader in = new FileReader(thresholdsFile, StandardCharsets.UTF_8)) {
+                thresholds.load(in);
+            }
+        }
+
+        boolean passed = true;
+        for (File file : files) {
+            String name = file.getName().substring(0, file.getName().length() - ".txt".length());
+            File expectedFile = new File(directory, name + ".expected");
+
+            List<Position> positions = new ArrayList<>();
+            try (BufferedReader in = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+                Position position;
+                while ((position = PositionCodec.readText(in)) != null) positions.add(position);
+            }
+
+            // First round: check the deductions, which also warms up the solver
+            List<String> found = new ArrayList<>();
+            for (Position position : positions) found.add(deductions(new Analyzer(position).analyze()));
+
+            if (update) {
+                Files.write(expectedFile.toPath(), found, StandardCharsets.UTF_8);
+            } else {
+                List<String> expected = expectedFile.exists() ? Files.readAllLines(expectedFile.toPath(), StandardCharsets.UTF_8) : List.of();
+                for (int i = 0; i < positions.size(); i++) {
+                    String expect = i < expected.size() ? expected.get(i) : "nothing";
+                    if (found.get(i).equals(expect)) continue;
+                    System.out.printf("%s position %d: expected %s\n", name, i + 1, expect);
+                    System.out.printf("%s position %d: found    %s\n", name, i + 1, found.get(i));
+                    passed = false;
+                }
+            }
+
+            // Then the timing
+            long[] times = new long[positions.size()];
+            long[] runs = new long[REPETITIONS];
+            for (int i = 0; i < positions.size(); i++) {
+                for (int run = 0; run < REPETITIONS; run++) {
+                    long time = System.nanoTime();
+                    new Analyzer(positions.get(i)).analyze();
+                    runs[run] = System.nanoTime() - time;
+                }
+                Arrays.sort(runs);
+                times[i] = runs[REPETITIONS / 2];
+            }
+            Arrays.sort(times);
+
+            double p99 = times[Math.max(0, (int) Math.ceil(times.length * 0.99) - 1)] / 1e6;
+            double max = times[times.length - 1] / 1e6;
+            double p99Limit = Double.parseDouble(thresholds.getProperty(name + ".p99", "Infinity"));
+            double maxLimit = Double.parseDouble(thresholds.getProperty(name + ".max", "Infinity"));
+            boolean fast = update || (p99 <= p99Limit && max <= maxLimit);
+            passed &= fast;
+
+            System.out.printf("%-14s %4d positions, p50 %8.2fms, p99 %8.2fms (limit %s), max %8.2fms (limit %s)%s\n", name,
+                    positions.size(), times[times.length / 2] / 1e6, p99, thresholds.getProperty(name + ".p99", "none"),
+                    max, thresholds.getProperty(name + ".max", "none"), fast ? "" : "  TOO SLOW");
+        }
+
+        System.out.println(update ? "Updated the expected deductions" : passed ? "Passed" : "Failed");
+        return passed;
+    }
+
+    /**
+     * What the solver found in a position as one line, the same position always gives the same line
+     * (the safe blocks, the mines and the probability of every other block next to a number)
+     */
+    private static String deductions(Analyzer.Analysis analysis) {
+        if (!analysis.possible) return "impossible";
+
+        Comparator<Point> order = Comparator.comparingInt((Point block) -> block.x).thenComparingInt(block -> block.y);
+        StringBuilder line = new StringBuilder("safe");
+        analysis.safe.stream().sorted(order).forEach(block -> line.append(' ').append(block.x).append(',').append(block.y));
+        line.append(" mines");
+        analysis.mines.stream().sorted(order).forEach(block -> line.append(' ').append(block.x).append(',').append(block.y));
+
+        line.append(" unsure");
+        Integer[] unsure = new Integer[analysis.unsure.size()];
+        for (int i = 0; i < unsure.length; i++) unsure[i] = i;
+        Arrays.sort(unsure, Comparator.comparing(analysis.unsure::get, order));
+        for (int i : unsure) {
+            Point block = analysis.unsure.get(i);
+            line.append(String.format(Locale.ROOT, " %d,%d=%.4f", block.x, block.y, analysis.probabilities.get(i)));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Compares the plain and the vector pixel matcher
+     * on a 2560x1440 screenshot of noise with the game in the bottom right corner
+     */
+    private static void pixels() {
+        int width = 2560, height = 1440;
+        Random random = new Random(1);
+
+        int[] screen = new int[width * height];
+        for (int i = 0; i < screen.length; i++) screen[i] = random.nextInt(0x1000000); // no alpha, so never a match
+        int start = (height - 200) * width + width - 300;
+        System.arraycopy(Board.BLOCK_CLOSED, 0, screen, start, Board.BLOCK_SIDE);
+
+        // One row of a 30 blocks wide game, with a bit of everything
+        int[] colors = {Board.BLOCK_EMPTY, Board.BLOCK_ONE, Board.BLOCK_TWO, Board.BLOCK_THREE, Board.BLOCK_FLAG, Board.BLOCK_CLOSED[0]};
+        int[] row = new int[30 * Board.BLOCK_SIDE];
+        for (int i = 0; i < 30; i++) row[i * Board.BLOCK_SIDE] = colors[random.nextInt(colors.length)];
+        int[] states = new int[30];
+
+        PixelMatcher vector = PixelMatcher.vector();
+        PixelMatcher[] matchers = vector == null ? new PixelMatcher[]{new ScalarPixelMatcher()} : new PixelMatcher[]{new ScalarPixelMatcher(), vector};
+        if (vector == null) System.out.println("The vector api isn't there, run with --add-modules jdk.incubator.vector to compare");
+
+        for (PixelMatcher matcher : matchers) {
+            String name = matcher.getClass().getSimpleName();
+
+            for (int run = 1; run <= 5; run++) {
+                long time = System.nanoTime();
+                int found = -1;
+                for (int y = 0; y < height - Board.BLOCK_SIDE && found < 0; y++) {
+                    found = matcher.find(screen, y * width, y * width + width - Board.BLOCK_SIDE, Board.BLOCK_CLOSED);
+                }
+                long findTime = System.nanoTime() - time;
+                if (found != start) throw new IllegalStateException(name + " didn't find the game");
+
+                time = System.nanoTime();
+                for (int i = 0; i < 1_000_000; i++) matcher.classify(row, 0, 30, states);
+                long classifyTime = System.nanoTime() - time;
+
+                System.out.printf("%s run %d: locating %.2fms (%.0f Mpixel/s), classifying %.1f Mblocks/s\n", name, run,
+                        findTime / 1e6, found / (findTime / 1e3), 30e6 / (classifyTime / 1e3));
+            }
+        }
+    }
+
+    /**
+     * Replays a recorded session through the locator and the classifier
+     * and measures how many frames per second we can read
+     */
+    private static void vision(String[] args) throws Board.BoardException, IOException {
+        if (args.length < 2) throw new IOException("Which recording?");
+        List<BufferedImage> frames = ImageBoard.readFrames(new File(args[1]));
+        int repetitions = args.length > 2 && !args[2].startsWith("--") ? Integer.parseInt(args[2]) : 5;
+        boolean print = args[args.length - 1].equals("--print");
+
+        System.out.println("Frames: " + frames.size());
+
+        for (int run = 1; run <= repetitions; run++) {
+            long time = System.nanoTime();
+
+            ImageBoard board = new ImageBoard(frames, 0);
+            long locateTime = System.nanoTime() - time;
+
+            // Every refresh reads the current frame and only then moves on to the next one
+            int read = 0;
+            try {
+                while (read < board.getCountFrames()) {
+                    board.refresh();
+                    read++;
+                    if (print && run == repetitions) System.out.println(board);
+                }
+            } catch (Board.BoardException e) {
+                // the recording ends with a lost game
+                read++;
+                if (print && run == repetitions) System.out.println(board + e.getMessage());
+            }
+
+            time = System.nanoTime() - time;
+            System.out.printf("Run %d: %dx%d board, located in %.2fms, %d frames in %.2fms (%.1f frames/s)\n", run,
+                    board.getCountColumn(), board.getCountRow(), locateTime / 1e6, read, time / 1e6, read / (time / 1e9));
+        }
+    }
+
+}
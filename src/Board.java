@@ -27,8 +27,12 @@ import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
 /**
  * Created by Patrick Stillhart on 25.12.2015.
@@ -40,7 +44,7 @@ import java.util.Arrays;
  */
 public class Board {
 
-    class BoardException extends Exception {
+    static class BoardException extends Exception {
 
         public BoardException(String message) {
             super(message);
@@ -49,6 +53,11 @@ public class Board {
     }
 
     static final int BLOCK_SIDE = 16;
+    // The skin the colors below belong to
+    static final String SKIN = "vistabluemineskin";
+    // Where the game was the last time
+    static final File GEOMETRY = new File(System.getProperty("user.home"), ".minesweeper-solver");
+
     // The values are the RGB code of the pixel row on 3
     static final int[] BLOCK_CLOSED = {-11765043, -11833638, -10386462, -10649116, -10911771, -10649373, -10649372, -10649372, -10714909, -10781215, -10781215, -10847520, -11044645, -11242793, -11570975, -14076059};
 
@@ -65,47 +74,56 @@ public class Board {
     static final int BLOCK_FLAG = -11636008;
     static final int BLOCK_MINE_EXPLODED = -12105399;
 
-    private Robot robot;
+    // How long the game needs to show the result of a click, in milliseconds
+    static final int SETTLE_TIME = 200;
+
+    private Screen screen;
+    private Screen.View view;
 
     private Rectangle boardRect;
     private BufferedImage board;
     private Point clickMultiplier, initialMousePosition;
 
     private int countColumn, countRow, countMines;
-    private State[][] field;
+    private Field field;
 
-    public Board(int countMines) throws BoardException {
+    // How far above the game we look for the mine counter, in pixel
+    static final int COUNTER_SEARCH_HEIGHT = 80;
+    // Where to look for the segments a to g of a digit, in percent of its width and height
+    static final int[][] SEGMENTS = {{50, 5}, {88, 27}, {88, 73}, {50, 95}, {12, 73}, {12, 27}, {50, 50}};
+    // The lit segments (bit 0 is a) of the digits 0 to 9, some of them are drawn in two ways
+    static final int[][] DIGITS = {{0x3f}, {0x06}, {0x5b}, {0x4f}, {0x66}, {0x6d}, {0x7d, 0x7c}, {0x07, 0x27}, {0x7f}, {0x6f, 0x67}};
 
-        try {
-            robot = new Robot();
-            // Determine where the game is
-            // Union together the bounds of each screen for screenshot
-            Rectangle screenRect = new Rectangle(0, 0, 0, 0);
-            for (GraphicsDevice gd : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
-                screenRect = screenRect.union(gd.getDefaultConfiguration().getBounds());
-            }
-            BufferedImage capture = robot.createScreenCapture(screenRect);
-            Point start = findZero(capture);
-            if (start == null) throw new BoardException("A Game? ... Computer says no");
+    // Compares the pixels, with the vector api if possible
+    static final PixelMatcher MATCHER = PixelMatcher.best();
+    private static final State[] STATES = State.values();
 
-            // Find the length and height of the game (in block count)
-            countColumn = calculateCountColumn(capture, start) + 1;
-            countRow = calculateCountRow(capture, start);
-            if (countColumn == 0 || countRow == 0) throw new BoardException("What kind of sorcery is this?");
+    // One row of the screenshot and what's on it
+    private int[] row, rowStates;
 
-            // Mirror the game internally
-            field = new State[countColumn][countRow];
-            for (State[] row : field) Arrays.fill(row, State.BLOCK_CLOSED);
+    private FrameRecorder recorder;
+    private int round;
 
-            // Set the amount of mines
-            this.countMines = countMines;
+    /**
+     * For board variants which provide their own frames and input,
+     * they have to call {@link #locate(BufferedImage, int)} themselves
+     */
+    protected Board() {
+    }
 
-            // Future screenshots only need to capture the game itself
-            boardRect = new Rectangle(start.x, start.y, countColumn * BLOCK_SIDE, countRow * BLOCK_SIDE);
-            board = robot.createScreenCapture(boardRect);
+    public Board(int countMines) throws BoardException {
+
+        try {
+            screen = new Screen();
+            view = new Screen.View();
+            // Determine where the game is
+            Rectangle screenRect = screen.getBounds();
 
-            // Since the original screenshot won't be here anymore we need a multiplier for the access via mouse click
-            clickMultiplier = new Point(start.x + BLOCK_SIDE / 2, start.y + BLOCK_SIDE / 2);
+            // The game usually is where it was last time, so check there first
+            if (!locateKnown(screenRect, countMines)) {
+                locate(capture(screenRect), countMines);
+                saveGeometry();
+            }
 
             // Get the mouse position when the process starts, to reset it in the end
             initialMousePosition = new Point(MouseInfo.getPointerInfo().getLocation().x, MouseInfo.getPointerInfo().getLocation().y);
@@ -116,19 +134,177 @@ public class Board {
 
     }
 
+    /**
+     * A game somewhere on a screen with more than one, see locateAll
+     *
+     * @param screen     the screen the game is on
+     * @param game       where the game is on the screen
+     * @param countMines the amount of mines
+     */
+    private Board(Screen screen, Rectangle game, int countMines) {
+        this.screen = screen;
+        view = new Screen.View();
+        use(new Point(game.x, game.y), game.width / BLOCK_SIDE, game.height / BLOCK_SIDE, countMines);
+        initialMousePosition = new Point(MouseInfo.getPointerInfo().getLocation().x, MouseInfo.getPointerInfo().getLocation().y);
+    }
+
+    /**
+     * Finds all the games on the screen, they all share one screenshot per tick from then on
+     *
+     * @param screen     the screen
+     * @param countMines the amount of mines (for all of them)
+     * @return a board for every game, from top left to bottom right
+     * @throws BoardException if there is no game
+     */
+    static List<Board> locateAll(Screen screen, int countMines) throws BoardException {
+        BufferedImage capture = screen.capture(new Screen.View(), screen.getBounds());
+        int width = capture.getWidth(), height = capture.getHeight();
+        int[] pixels = capture.getRGB(0, 0, width, height, null, 0, width);
+
+        List<Board> boards = new ArrayList<>();
+        Rectangle area = null;
+        for (Rectangle game : findGames(pixels, width, height)) {
+            game.translate(screen.getBounds().x, screen.getBounds().y);
+            boards.add(new Board(screen, game, countMines));
+            area = area == null ? new Rectangle(game) : area.union(game);
+        }
+        if (boards.isEmpty()) throw new BoardException("A Game? ... Computer says no");
+
+        screen.share(area);
+        return boards;
+    }
+
+    /**
+     * Finds the game on a screenshot and sets everything up for it
+     *
+     * @param capture    screenshot of everything the game could be on
+     * @param countMines the amount of mines
+     * @throws BoardException if there is no game
+     */
+    protected void locate(BufferedImage capture, int countMines) throws BoardException {
+        int width = capture.getWidth(), height = capture.getHeight();
+        int[] pixels = capture.getRGB(0, 0, width, height, null, 0, width);
+
+        Point start = findZero(pixels, width, height);
+        if (start == null) throw new BoardException("A Game? ... Computer says no");
+
+        // Find the length and height of the game (in block count)
+        int countColumn = calculateCountColumn(pixels, width, start) + 1;
+        int countRow = calculateCountRow(pixels, width, height, start);
+        if (countColumn == 0 || countRow == 0) throw new BoardException("What kind of sorcery is this?");
+
+        use(start, countColumn, countRow, countMines);
+    }
+
+    /**
+     * Looks for the game where it was the last time, with a screenshot of only that part of the screen
+     * It has to be at the same place, of the same size and with the same skin - otherwise we need the full search
+     *
+     * @param screenRect the bounds of all screens
+     * @param countMines the amount of mines
+     * @return true if the game is still there
+     */
+    private boolean locateKnown(Rectangle screenRect, int countMines) {
+        Properties geometry = new Properties();
+        try (FileInputStream in = new FileInputStream(GEOMETRY)) {
+            geometry.load(in);
+        } catch (IOException e) {
+            return false; // we never saw a game before
+        }
+
+        try {
+            if (!SKIN.equals(geometry.getProperty("skin"))) return false;
+            Point start = new Point(Integer.parseInt(geometry.getProperty("x")), Integer.parseInt(geometry.getProperty("y")));
+            int countColumn = Integer.parseInt(geometry.getProperty("columns"));
+            int countRow = Integer.parseInt(geometry.getProperty("rows"));
+
+            // One block more in each direction, to notice if the game got bigger
+            Rectangle rect = new Rectangle(start.x, start.y, (countColumn + 2) * BLOCK_SIDE, (countRow + 2) * BLOCK_SIDE).intersection(screenRect);
+            if (rect.x != start.x || rect.y != start.y || rect.width < countColumn * BLOCK_SIDE || rect.height < countRow * BLOCK_SIDE) return false;
+
+            BufferedImage capture = capture(rect);
+            int width = capture.getWidth(), height = capture.getHeight();
+            int[] pixels = capture.getRGB(0, 0, width, height, null, 0, width);
+
+            // Measure it like the full search does
+            Point zero = new Point(0, 0);
+            if (!MATCHER.matches(pixels, 0, BLOCK_CLOSED, 0)) return false;
+            if (calculateCountColumn(pixels, width, zero) + 1 != countColumn || calculateCountRow(pixels, width, height, zero) != countRow) return false;
+
+            use(start, countColumn, countRow, countMines);
+            return true;
+
+        } catch (NumberFormatException | NullPointerException e) {
+            return false; // someone messed with the file
+        }
+    }
+
+    /**
+     * Remembers where the game is for the next time
+     */
+    private void saveGeometry() {
+        Properties geometry = new Properties();
+        geometry.setProperty("x", String.valueOf(boardRect.x));
+        geometry.setProperty("y", String.valueOf(boardRect.y));
+        geometry.setProperty("columns", String.valueOf(countColumn));
+        geometry.setProperty("rows", String.valueOf(countRow));
+        geometry.setProperty("skin", SKIN);
+
+        try (FileOutputStream out = new FileOutputStream(GEOMETRY)) {
+            geometry.store(out, "Where the minesweeper game was the last time");
+        } catch (IOException e) {
+            System.err.println("Can't remember where the game is: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets everything up for a game at this position
+     *
+     * @param start       the top left corner of the game on the screen
+     * @param countColumn the amount of columns
+     * @param countRow    the amount of rows
+     * @param countMines  the amount of mines
+     */
+    private void use(Point start, int countColumn, int countRow, int countMines) {
+        mirror(countColumn, countRow, countMines);
+
+        // Future screenshots only need to capture the game itself
+        boardRect = new Rectangle(start.x, start.y, countColumn * BLOCK_SIDE, countRow * BLOCK_SIDE);
+        board = capture(boardRect);
+
+        // Since the original screenshot won't be here anymore we need a multiplier for the access via mouse click
+        clickMultiplier = new Point(start.x + BLOCK_SIDE / 2, start.y + BLOCK_SIDE / 2);
+    }
+
+    /**
+     * Mirrors a game of this size internally
+     *
+     * @param countColumn the amount of columns
+     * @param countRow    the amount of rows
+     * @param countMines  the amount of mines
+     */
+    protected void mirror(int countColumn, int countRow, int countMines) {
+        this.countColumn = countColumn;
+        this.countRow = countRow;
+        this.countMines = countMines;
+        field = new Field(countColumn, countRow);
+        row = new int[countColumn * BLOCK_SIDE];
+        rowStates = new int[countColumn];
+    }
+
     /**
      * Restarts the game
      * @return true if successful
      */
     public boolean restart() {
-        robot.mouseMove(clickMultiplier.x, clickMultiplier.y - BLOCK_SIDE / 2);
-        robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
-        robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
-
-        robot.keyPress(KeyEvent.VK_F2);
-        robot.keyRelease(KeyEvent.VK_F2);
+        // The smiley is half a block above the first one
+        // Nobody else may click in between, the key goes to the window clicked last
+        synchronized (screen) {
+            screen.click(view, clickMultiplier.x, clickMultiplier.y - BLOCK_SIDE / 2, InputEvent.BUTTON1_DOWN_MASK);
+            screen.type(KeyEvent.VK_F2);
+        }
 
-        for (State[] row : field) Arrays.fill(row, State.BLOCK_CLOSED);
+        field.reset();
 
         return true;
     }
@@ -144,17 +320,35 @@ public class Board {
         State tmp;
         boolean change = false;
 
-        board = robot.createScreenCapture(boardRect);
+        board = capture(boardRect);
+        if (recorder != null) recorder.record(board, round, boardRect);
+
+        // we'll only check the ones who were closed in the last screenshot, so skip the tiles without any
+        for (int ty = 0; ty < field.getCountTileRow(); ty++) {
+            for (int y = ty * Field.TILE_SIDE; y < Math.min(countRow, (ty + 1) * Field.TILE_SIDE); y++) {
+                boolean classified = false;
 
-        for (int x = 0; x < countColumn; x++) {
-            for (int y = 0; y < countRow; y++) {
+                for (int tx = 0; tx < field.getCountTileColumn(); tx++) {
+                    if (field.getClosedInTile(tx, ty) == 0) continue;
 
-                // we'll only check the ones who were closed in the last screenshot
-                tmp = field[x][y];
-                if (tmp == State.BLOCK_CLOSED) {
-                    field[x][y] = read(x, y);
-                    if (field[x][y] != tmp) change = true;
-                } else if (tmp == State.BLOCK_MINE_EXPLODED) throw new BoardException("Well... there was a mine at (" + (x + 1) + "/" + (y + 1) + ")");
+                    // Read the whole row at once
+                    if (!classified) {
+                        board.getRGB(0, y * BLOCK_SIDE, row.length, 1, row, 0, row.length);
+                        MATCHER.classify(row, 0, countColumn, rowStates);
+                        classified = true;
+                    }
+
+                    for (int x = tx * Field.TILE_SIDE; x < Math.min(countColumn, (tx + 1) * Field.TILE_SIDE); x++) {
+
+                        if (field.get(x, y) != State.BLOCK_CLOSED) continue;
+                        tmp = STATES[rowStates[x]];
+                        if (tmp == State.BLOCK_CLOSED) continue;
+
+                        field.set(x, y, tmp);
+                        change = true;
+                        if (tmp == State.BLOCK_MINE_EXPLODED) throw new BoardException("Well... there was a mine at (" + (x + 1) + "/" + (y + 1) + ")");
+                    }
+                }
             }
         }
 
@@ -162,6 +356,25 @@ public class Board {
 
     }
 
+    /**
+     * Waits until the game had the time to show what the last clicks did
+     *
+     * @throws InterruptedException if someone doesn't want us to wait
+     */
+    public void settle() throws InterruptedException {
+        settle(0);
+    }
+
+    /**
+     * Waits for what is left of the settle time, after we did something useful in between
+     *
+     * @param busy how many ms already passed since the last clicks
+     * @throws InterruptedException if someone doesn't want us to wait
+     */
+    public void settle(long busy) throws InterruptedException {
+        if (busy < SETTLE_TIME) Thread.sleep(SETTLE_TIME - busy);
+    }
+
     /**
      * Open a field
      *
@@ -169,9 +382,7 @@ public class Board {
      * @param y you seriously should understand it
      */
     public void open(int x, int y) {
-        robot.mouseMove(clickMultiplier.x + x * BLOCK_SIDE, clickMultiplier.y + y * BLOCK_SIDE);
-        robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
-        robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+        click(x, y, InputEvent.BUTTON1_DOWN_MASK);
     }
 
     /**
@@ -181,9 +392,7 @@ public class Board {
      * @param y you seriously should understand it
      */
     public void openSurrounding(int x, int y) {
-        robot.mouseMove(clickMultiplier.x + x * BLOCK_SIDE, clickMultiplier.y + y * BLOCK_SIDE);
-        robot.mousePress(InputEvent.BUTTON2_DOWN_MASK);
-        robot.mouseRelease(InputEvent.BUTTON2_DOWN_MASK);
+        click(x, y, InputEvent.BUTTON2_DOWN_MASK);
 
     }
 
@@ -194,12 +403,10 @@ public class Board {
      * @param y you seriously should understand it
      */
     public void flag(int x, int y) {
-        if (field[x][y] != State.BLOCK_CLOSED) return;
-        field[x][y] = State.BLOCK_FLAG;
+        if (field.get(x, y) != State.BLOCK_CLOSED) return;
+        field.set(x, y, State.BLOCK_FLAG);
 
-        robot.mouseMove(clickMultiplier.x + x * BLOCK_SIDE, clickMultiplier.y + y * BLOCK_SIDE);
-        robot.mousePress(InputEvent.BUTTON3_DOWN_MASK);
-        robot.mouseRelease(InputEvent.BUTTON3_DOWN_MASK);
+        click(x, y, InputEvent.BUTTON3_DOWN_MASK);
     }
 
     /**
@@ -212,26 +419,57 @@ public class Board {
         if (y > 0) {
             if (x > 0) flag(x - 1, y - 1);    // top ■□□
             flag(x, y - 1);    // top □■□
-            if (x < field.length - 1) flag(x + 1, y - 1);  // top □□■
+            if (x < countColumn - 1) flag(x + 1, y - 1);  // top □□■
         }
 
         if (x > 0) flag(x - 1, y);  // middle ■□□
-        if (x + 1 < field.length - 1) flag(x + 1, y); // middle □□■
+        if (x + 1 < countColumn - 1) flag(x + 1, y); // middle □□■
 
-        if (y + 1 < field[0].length - 1) {
+        if (y + 1 < countRow - 1) {
             if (x > 0) flag(x - 1, y + 1);  // bottom ■□□
             flag(x, y + 1);    // bottom □■□
-            if (x < field.length - 1) flag(x + 1, y + 1); // bottom □□■
+            if (x < countColumn - 1) flag(x + 1, y + 1); // bottom □□■
         }
 
     }
 
     /**
-     * Returns the cached field array
+     * Keeps the screenshots of every refresh from now on in a ring file
      *
-     * @return the field array
+     * @param file  the ring file
+     * @param slots how many screenshots to keep
+     * @throws IOException if the file can't be created
      */
-    public State[][] getField() {
+    public void startRecording(File file, int slots) throws IOException {
+        recorder = new FrameRecorder(file, slots, boardRect.width, boardRect.height);
+    }
+
+    /**
+     * Writes the recorded screenshots to the disk and stops recording
+     *
+     * @throws IOException if the file can't be closed
+     */
+    public void stopRecording() throws IOException {
+        if (recorder == null) return;
+        recorder.close();
+        recorder = null;
+    }
+
+    /**
+     * Tells the board which round the solver is in, for the recorded screenshots
+     *
+     * @param round the round
+     */
+    public void setRound(int round) {
+        this.round = round;
+    }
+
+    /**
+     * Returns the cached field
+     *
+     * @return the field
+     */
+    public Field getField() {
         return field;
     }
 
@@ -247,15 +485,135 @@ public class Board {
         return countMines;
     }
 
+    public void setCountMines(int countMines) {
+        this.countMines = countMines;
+    }
+
+    /**
+     * Reads the mine counter, the red digits somewhere above the game
+     *
+     * @return the number it shows or -1 if it can't be read
+     */
+    public int readMineCounter() {
+        return readCounter(capture(new Rectangle(boardRect.x, boardRect.y - COUNTER_SEARCH_HEIGHT, boardRect.width, COUNTER_SEARCH_HEIGHT)));
+    }
+
+    /**
+     * Reads the leftmost three digit counter (seven segments, red on black) on a screenshot
+     * The dark red unlit segments mark the size of the digits, the bright red ones are the lit segments.
+     *
+     * @param capture the screenshot
+     * @return the number or -1 if there is none
+     */
+    static int readCounter(BufferedImage capture) {
+        int width = capture.getWidth(), height = capture.getHeight();
+        if (width == 0 || height == 0) return -1;
+        int[] pixels = capture.getRGB(0, 0, width, height, null, 0, width);
+
+        // Find the columns of the counter, the digits may have a small gap between them
+        int[] starts = new int[4], ends = new int[4];
+        int runs = 0, top = height, bottom = -1;
+        boolean inRun = false;
+        for (int x = 0; x < width; x++) {
+            boolean counter = false;
+            for (int y = 0; y < height; y++) {
+                if (!isCounter(pixels[y * width + x])) continue;
+                counter = true;
+                top = Math.min(top, y);
+                bottom = Math.max(bottom, y);
+            }
+
+            if (counter && !inRun) {
+                if (runs > 0 && x - ends[runs - 1] > 4) break; // that's something else, like the timer
+                if (runs == starts.length) return -1;
+                starts[runs++] = x;
+            }
+            if (counter) ends[runs - 1] = x + 1;
+            inRun = counter;
+        }
+
+        // Either each digit on its own or all of them in one block
+        if (runs == 1) {
+            int digitWidth = (ends[0] - starts[0]) / 3;
+            for (int digit = 2; digit >= 0; digit--) {
+                starts[digit] = starts[0] + digit * digitWidth;
+                ends[digit] = starts[digit] + digitWidth;
+            }
+        } else if (runs != 3) return -1;
+
+        int digitHeight = bottom - top + 1;
+        if (digitHeight < 9) return -1;
+
+        int number = 0;
+        for (int digit = 0; digit < 3; digit++) {
+            int digitWidth = ends[digit] - starts[digit];
+            if (digitWidth < 5) return -1;
+
+            int segments = 0;
+            for (int segment = 0; segment < 7; segment++) {
+                int x = starts[digit] + SEGMENTS[segment][0] * (digitWidth - 1) / 100;
+                int y = top + SEGMENTS[segment][1] * (digitHeight - 1) / 100;
+
+                // The segments are a few pixels thick, look around a bit
+                boolean lit = false;
+                for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++) {
+                    for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++) {
+                        if (isLit(pixels[j * width + i])) lit = true;
+                    }
+                }
+                if (lit) segments |= 1 << segment;
+            }
+
+            int value = -1;
+            for (int i = 0; i < DIGITS.length; i++) {
+                for (int pattern : DIGITS[i]) if (pattern == segments) value = i;
+            }
+            if (value < 0) return -1; // most likely a minus, there are more flags than mines
+            number = number * 10 + value;
+        }
+
+        return number;
+    }
+
+    private static boolean isCounter(int pixel) {
+        int r = (pixel >> 16) & 0xff, g = (pixel >> 8) & 0xff, b = pixel & 0xff;
+        return r >= 0x40 && r > 2 * g && r > 2 * b;
+    }
+
+    private static boolean isLit(int pixel) {
+        int r = (pixel >> 16) & 0xff, g = (pixel >> 8) & 0xff, b = pixel & 0xff;
+        return r >= 0xc0 && g < 0x60 && b < 0x60;
+    }
+
+    /**
+     * Takes a screenshot
+     *
+     * @param rect the area to capture in screen coordinates
+     * @return the screenshot
+     */
+    protected BufferedImage capture(Rectangle rect) {
+        return screen.capture(view, rect);
+    }
+
+    /**
+     * Clicks on a field
+     *
+     * @param x      why are you reading this?
+     * @param y      you seriously should understand it
+     * @param button the mouse button mask from InputEvent
+     */
+    protected void click(int x, int y, int button) {
+        screen.click(view, clickMultiplier.x + x * BLOCK_SIDE, clickMultiplier.y + y * BLOCK_SIDE, button);
+    }
+
     /**
      * Gives the value from a field read from the screenshot back as state
      *
-     * @param x why are you reading this?
-     * @param y you seriously should understand it
+     * @param pixel the first pixel of the field
      * @return the state
      */
-    private State read(int x, int y) {
-        switch (board.getRGB(x * BLOCK_SIDE, y * BLOCK_SIDE)) {
+    static State read(int pixel) {
+        switch (pixel) {
             case BLOCK_EMPTY:
                 return State.BLOCK_EMPTY; // Put BLOCK_EMPTY out of order since it will happen most often
             case BLOCK_ONE:
@@ -283,44 +641,115 @@ public class Board {
         return State.BLOCK_CLOSED;
     }
 
+    /**
+     * The opposite of read
+     *
+     * @param state the state
+     * @return the first pixel of a field in this state, the one of BLOCK_CLOSED for all others
+     */
+    static int pixel(State state) {
+        switch (state) {
+            case BLOCK_EMPTY:
+                return BLOCK_EMPTY;
+            case BLOCK_ONE:
+                return BLOCK_ONE;
+            case BLOCK_TWO:
+                return BLOCK_TWO;
+            case BLOCK_THREE:
+                return BLOCK_THREE;
+            case BLOCK_FOUR:
+                return BLOCK_FOUR;
+            case BLOCK_FIVE:
+                return BLOCK_FIVE;
+            case BLOCK_SIX:
+                return BLOCK_SIX;
+            case BLOCK_SEVEN:
+                return BLOCK_SEVEN;
+            case BLOCK_EIGHT:
+                return BLOCK_EIGHT;
+            case BLOCK_FLAG:
+                return BLOCK_FLAG;
+            case BLOCK_MINE_EXPLODED:
+                return BLOCK_MINE_EXPLODED;
+        }
+
+        return BLOCK_CLOSED[0];
+    }
+
     public void end() {
-        robot.mouseMove(initialMousePosition.x, initialMousePosition.y);
+        screen.move(initialMousePosition.x, initialMousePosition.y);
     }
 
     /**
      * Finds the starting point of the minesweeper game board on the screenshot
      *
-     * @param capture the screenshot
+     * @param pixels the screenshot, row by row
+     * @param width  the width of the screenshot
+     * @param height the height of the screenshot
      * @return ZeroPoint
      */
-    private Point findZero(BufferedImage capture) {
-        for (int x = 0; x < capture.getWidth() - BLOCK_SIDE; x++) {
-            heightLoop:
-            for (int y = 0; y < capture.getHeight() - BLOCK_SIDE; y++) {
-                if (capture.getRGB(x, y) == BLOCK_CLOSED[0]) {
-                    for (int i = 1; i < BLOCK_SIDE; i++) {
-                        if (capture.getRGB(x + i, y) != BLOCK_CLOSED[i]) continue heightLoop;
-                    }
-                    return new Point(x, y);
+    private Point findZero(int[] pixels, int width, int height) {
+        for (int y = 0; y < height - BLOCK_SIDE; y++) {
+            int x = MATCHER.find(pixels, y * width, y * width + width - BLOCK_SIDE, BLOCK_CLOSED);
+            if (x >= 0) return new Point(x - y * width, y);
+        }
+        return null;
+    }
+
+    /**
+     * Finds all the games on the screenshot, a game is where a closed block is at the top left
+     *
+     * @param pixels the screenshot, row by row
+     * @param width  the width of the screenshot
+     * @param height the height of the screenshot
+     * @return where the games are on the screenshot
+     */
+    private static List<Rectangle> findGames(int[] pixels, int width, int height) {
+        List<Rectangle> games = new ArrayList<>();
+
+        for (int y = 0; y < height - BLOCK_SIDE; y++) {
+            int from = y * width, to = y * width + width - BLOCK_SIDE;
+
+            while (from < to) {
+                int found = MATCHER.find(pixels, from, to, BLOCK_CLOSED);
+                if (found < 0) break;
+                Point start = new Point(found - y * width, y);
+
+                // Skip the games we already have
+                Rectangle known = null;
+                for (Rectangle game : games) if (game.contains(start.x, start.y)) known = game;
+                if (known != null) {
+                    from = y * width + known.x + known.width;
+                    continue;
+                }
+
+                int countColumn = calculateCountColumn(pixels, width, start) + 1;
+                int countRow = calculateCountRow(pixels, width, height, start);
+                if (countRow == 0) {
+                    from = found + 1;
+                    continue;
                 }
+
+                games.add(new Rectangle(start.x, start.y, countColumn * BLOCK_SIDE, countRow * BLOCK_SIDE));
+                from = found + countColumn * BLOCK_SIDE;
             }
         }
-        return null;
+
+        return games;
     }
 
     /**
      * Calculates how many columns the game has
      *
-     * @param capture the screenshot
-     * @param start   the starting point for looking
+     * @param pixels the screenshot, row by row
+     * @param width  the width of the screenshot
+     * @param start  the starting point for looking
      * @return the amount of columns
      */
-    private int calculateCountColumn(BufferedImage capture, Point start) {
+    private static int calculateCountColumn(int[] pixels, int width, Point start) {
         int blocks = 0;
-        for (int i = start.x; i < capture.getWidth() - BLOCK_SIDE; i += BLOCK_SIDE) {
-            for (int j = 1; j < BLOCK_SIDE; j++) {
-                if (capture.getRGB(i + j, start.y) != BLOCK_CLOSED[j]) return blocks;
-            }
+        for (int i = start.x; i < width - BLOCK_SIDE; i += BLOCK_SIDE) {
+            if (!MATCHER.matches(pixels, start.y * width + i, BLOCK_CLOSED, 1)) return blocks;
             blocks++;
         }
         return blocks;
@@ -329,16 +758,16 @@ public class Board {
     /**
      * Calculates how many rows the game has
      *
-     * @param capture the screenshot
-     * @param start   the starting point for looking
+     * @param pixels the screenshot, row by row
+     * @param width  the width of the screenshot
+     * @param height the height of the screenshot
+     * @param start  the starting point for looking
      * @return the amount of rows
      */
-    private int calculateCountRow(BufferedImage capture, Point start) {
+    private static int calculateCountRow(int[] pixels, int width, int height, Point start) {
         int blocks = 0;
-        for (int i = start.y; i < capture.getHeight() - BLOCK_SIDE; i += BLOCK_SIDE) {
-            for (int j = 1; j < BLOCK_SIDE; j++) {
-                if (capture.getRGB(start.x + j, i) != BLOCK_CLOSED[j]) return blocks;
-            }
+        for (int i = start.y; i < height - BLOCK_SIDE; i += BLOCK_SIDE) {
+            if (!MATCHER.matches(pixels, i * width + start.x, BLOCK_CLOSED, 1)) return blocks;
             blocks++;
         }
         return blocks;
@@ -348,6 +777,21 @@ public class Board {
     Debugging Methods
      */
 
+    /**
+     * Draws the field with the symbols of the states, one line per row
+     *
+     * @return the field as text
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < countRow; y++) {
+            for (int x = 0; x < countColumn; x++) sb.append(field.get(x, y).getSymbol());
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
     /**
      * Prints the RGB Code used for identification for a field as java code
      */
@@ -0,0 +1,302 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.util.Arrays;
+
+/**
+ * The mirrored game, one byte per block
+ * <p>
+ * The blocks are stored with a border of one block around the game which is never opened (a sentinel),
+ * like that the neighbours of every block can be reached without checking the bounds.
+ * Each block knows how many closed, flagged and opened blocks are around it, the counts are kept up to date
+ * whenever a block changes. The same goes for the frontier (closed blocks with opened ones around)
+ * and the unsolved numbers (opened ones with closed ones around).
+ * <p>
+ * The board is also split into tiles of TILE_SIDE x TILE_SIDE blocks, each one knows how many closed
+ * blocks it has. Like that everything that runs each round only has to look at the tiles where something can happen.
+ * Each tile also remembers when one of its blocks changed the last time (a number which counts up with every change).
+ */
+public class Field {
+
+    static final int TILE_SIDE = 16;
+
+    private static final State[] STATES = State.values();
+    private static final byte CLOSED = (byte) State.BLOCK_CLOSED.ordinal();
+    private static final byte FLAG = (byte) State.BLOCK_FLAG.ordinal();
+    private static final byte OUTSIDE = -1;
+
+    private final int countColumn, countRow, stride;
+    private final int[] neighbours;
+
+    private final byte[] blocks;
+    private final byte[] closedAround, flagsAround, openedAround;
+
+    // Sparse sets: the indices of the members and where in there each block is (-1 if it's not)
+    private final int[] frontier, frontierPosition;
+    private final int[] unsolved, unsolvedPosition;
+    private int countFrontier, countUnsolved;
+
+    private final int countTileColumn, countTileRow;
+    private final int[] closedInTile;
+    private final int[] changedInTile;
+    private int countChanges;
+    private int countClosed, countFlags, countExploded;
+
+    public Field(int countColumn, int countRow) {
+        this.countColumn = countColumn;
+        this.countRow = countRow;
+        stride = countRow + 2;
+        neighbours = new int[]{-stride - 1, -stride, -stride + 1, -1, 1, stride - 1, stride, stride + 1};
+
+        int size = (countColumn + 2) * stride;
+        blocks = new byte[size];
+        closedAround = new byte[size];
+        flagsAround = new byte[size];
+        openedAround = new byte[size];
+        frontier = new int[countColumn * countRow];
+        frontierPosition = new int[size];
+        unsolved = new int[countColumn * countRow];
+        unsolvedPosition = new int[size];
+
+        countTileColumn = (countColumn + TILE_SIDE - 1) / TILE_SIDE;
+        countTileRow = (countRow + TILE_SIDE - 1) / TILE_SIDE;
+        closedInTile = new int[countTileColumn * countTileRow];
+        changedInTile = new int[countTileColumn * countTileRow];
+
+        reset();
+    }
+
+    /**
+     * Closes all blocks again
+     */
+    public void reset() {
+        Arrays.fill(blocks, OUTSIDE);
+        Arrays.fill(closedAround, (byte) 0);
+        Arrays.fill(flagsAround, (byte) 0);
+        Arrays.fill(openedAround, (byte) 0);
+        Arrays.fill(frontierPosition, -1);
+        Arrays.fill(unsolvedPosition, -1);
+        countFrontier = 0;
+        countUnsolved = 0;
+
+        for (int x = 0; x < countColumn; x++) {
+            for (int y = 0; y < countRow; y++) {
+                int i = index(x, y);
+                blocks[i] = CLOSED;
+                for (int n : neighbours) closedAround[i + n]++;
+            }
+        }
+
+        for (int tx = 0; tx < countTileColumn; tx++) {
+            for (int ty = 0; ty < countTileRow; ty++) {
+                closedInTile[tx * countTileRow + ty] = (Math.min(countColumn, (tx + 1) * TILE_SIDE) - tx * TILE_SIDE)
+                        * (Math.min(countRow, (ty + 1) * TILE_SIDE) - ty * TILE_SIDE);
+            }
+        }
+        Arrays.fill(changedInTile, ++countChanges);
+        countClosed = countColumn * countRow;
+        countFlags = 0;
+        countExploded = 0;
+    }
+
+    public State get(int x, int y) {
+        return STATES[blocks[index(x, y)]];
+    }
+
+    public void set(int x, int y, State state) {
+        int i = index(x, y);
+        State old = STATES[blocks[i]];
+        if (old == state) return;
+        blocks[i] = (byte) state.ordinal();
+
+        int tile = (x / TILE_SIDE) * countTileRow + y / TILE_SIDE;
+        changedInTile[tile] = ++countChanges;
+        if (old == State.BLOCK_CLOSED) {
+            closedInTile[tile]--;
+            countClosed--;
+        } else if (old == State.BLOCK_FLAG) countFlags--;
+        else if (old == State.BLOCK_MINE_EXPLODED) countExploded--;
+
+        if (state == State.BLOCK_CLOSED) {
+            closedInTile[tile]++;
+            countClosed++;
+        } else if (state == State.BLOCK_FLAG) countFlags++;
+        else if (state == State.BLOCK_MINE_EXPLODED) countExploded++;
+
+        // Tell the neighbours
+        int closed = (state == State.BLOCK_CLOSED ? 1 : 0) - (old == State.BLOCK_CLOSED ? 1 : 0);
+        int flags = (state == State.BLOCK_FLAG ? 1 : 0) - (old == State.BLOCK_FLAG ? 1 : 0);
+        int opened = (state.getVal() >= 0 ? 1 : 0) - (old.getVal() >= 0 ? 1 : 0);
+        for (int n : neighbours) {
+            closedAround[i + n] += closed;
+            flagsAround[i + n] += flags;
+            openedAround[i + n] += opened;
+            update(i + n);
+        }
+        update(i);
+    }
+
+    /**
+     * Puts a block into (or out of) the frontier and the unsolved numbers
+     */
+    private void update(int i) {
+        byte block = blocks[i];
+
+        boolean isFrontier = block == CLOSED && openedAround[i] > 0;
+        if (isFrontier != frontierPosition[i] >= 0) {
+            if (isFrontier) countFrontier = add(frontier, frontierPosition, countFrontier, i);
+            else countFrontier = remove(frontier, frontierPosition, countFrontier, i);
+        }
+
+        boolean isUnsolved = block >= 0 && STATES[block].getVal() > 0 && closedAround[i] > 0;
+        if (isUnsolved != unsolvedPosition[i] >= 0) {
+            if (isUnsolved) countUnsolved = add(unsolved, unsolvedPosition, countUnsolved, i);
+            else countUnsolved = remove(unsolved, unsolvedPosition, countUnsolved, i);
+        }
+    }
+
+    private static int add(int[] members, int[] position, int count, int i) {
+        members[count] = i;
+        position[i] = count;
+        return count + 1;
+    }
+
+    /**
+     * The last member takes the place of the removed one
+     */
+    private static int remove(int[] members, int[] position, int count, int i) {
+        int last = members[--count];
+        members[position[i]] = last;
+        position[last] = position[i];
+        position[i] = -1;
+        return count;
+    }
+
+    private int index(int x, int y) {
+        return (x + 1) * stride + y + 1;
+    }
+
+    public int getCountColumn() {
+        return countColumn;
+    }
+
+    public int getCountRow() {
+        return countRow;
+    }
+
+    /**
+     * @return how many blocks are still closed (flags don't count)
+     */
+    public int getCountClosed() {
+        return countClosed;
+    }
+
+    public int getCountFlags() {
+        return countFlags;
+    }
+
+    /**
+     * @return true if a mine went off
+     */
+    public boolean hasExploded() {
+        return countExploded > 0;
+    }
+
+    public int getClosedAround(int x, int y) {
+        return closedAround[index(x, y)];
+    }
+
+    public int getFlagsAround(int x, int y) {
+        return flagsAround[index(x, y)];
+    }
+
+    /**
+     * A frontier block is a closed block with opened blocks next to it
+     *
+     * @param x why are you reading this?
+     * @param y you seriously should understand it
+     * @return true if it is one
+     */
+    public boolean isFrontier(int x, int y) {
+        return frontierPosition[index(x, y)] >= 0;
+    }
+
+    public int getCountFrontier() {
+        return countFrontier;
+    }
+
+    public int getFrontierX(int i) {
+        return frontier[i] / stride - 1;
+    }
+
+    public int getFrontierY(int i) {
+        return frontier[i] % stride - 1;
+    }
+
+    /**
+     * An unsolved number is an opened block (not empty) with closed blocks next to it
+     * Removing one (by flagging around it) moves the last one into its place
+     *
+     * @return how many there are
+     */
+    public int getCountUnsolved() {
+        return countUnsolved;
+    }
+
+    public int getUnsolvedX(int i) {
+        return unsolved[i] / stride - 1;
+    }
+
+    public int getUnsolvedY(int i) {
+        return unsolved[i] % stride - 1;
+    }
+
+    public int getCountTileColumn() {
+        return countTileColumn;
+    }
+
+    public int getCountTileRow() {
+        return countTileRow;
+    }
+
+    public int getClosedInTile(int tx, int ty) {
+        return closedInTile[tx * countTileRow + ty];
+    }
+
+    /**
+     * @return the number of changes so far, see getChangedInTile
+     */
+    public int getCountChanges() {
+        return countChanges;
+    }
+
+    /**
+     * @param tx the column of the tile
+     * @param ty the row of the tile
+     * @return what getCountChanges was when a block of the tile changed the last time
+     */
+    public int getChangedInTile(int tx, int ty) {
+        return changedInTile[tx * countTileRow + ty];
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Keeps the last screenshots of the board in a memory mapped ring file,
+ * so we can have a look at them after something went wrong
+ * <p>
+ * The file starts with a header (see the HEADER_ constants) followed by the slots.
+ * Each slot has its own header (see the SLOT_ constants) followed by the pixels as ints, row by row.
+ * <p>
+ * Usage to get the frames out again: java FrameRecorder &lt;ring file&gt; &lt;output directory&gt;
+ */
+public class FrameRecorder {
+
+    static final int MAGIC = 0x4d534652; // MSFR
+    static final int VERSION = 1;
+
+    // File header, the offsets are in bytes
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_SLOTS = 8;
+    static final int HEADER_WIDTH = 12;
+    static final int HEADER_HEIGHT = 16;
+    static final int HEADER_NEXT = 24; // long, sequence number of the next frame
+    static final int HEADER_SIZE = 32;
+
+    // Slot header, the offsets are in bytes from the start of the slot
+    static final int SLOT_SEQUENCE = 0; // long, -1 while it's written
+    static final int SLOT_TIMESTAMP = 8; // long, milliseconds since epoch
+    static final int SLOT_ROUND = 16;
+    static final int SLOT_X = 20;
+    static final int SLOT_Y = 24;
+    static final int SLOT_WIDTH = 28;
+    static final int SLOT_HEIGHT = 32;
+    static final int SLOT_HEADER_SIZE = 40;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final IntBuffer pixels;
+
+    private final int slots, width, height, slotSize;
+    private long next;
+
+    /**
+     * Creates (or overwrites) a ring file
+     *
+     * @param target where to put it
+     * @param slots  how many frames it holds
+     * @param width  the width of the frames in pixel
+     * @param height the height of the frames in pixel
+     * @throws IOException if the file can't be mapped
+     */
+    public FrameRecorder(File target, int slots, int width, int height) throws IOException {
+        this.slots = slots;
+        this.width = width;
+        this.height = height;
+        this.slotSize = SLOT_HEADER_SIZE + width * height * 4;
+
+        long size = HEADER_SIZE + (long) slots * slotSize;
+        if (size > Integer.MAX_VALUE) throw new IOException("The ring can't be bigger than 2GB, use less slots");
+
+        file = new RandomAccessFile(target, "rw");
+        file.setLength(0);
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        pixels = buffer.asIntBuffer();
+
+        for (int slot = 0; slot < slots; slot++) buffer.putLong(HEADER_SIZE + slot * slotSize + SLOT_SEQUENCE, -1);
+
+        buffer.putInt(HEADER_MAGIC, MAGIC);
+        buffer.putInt(HEADER_VERSION, VERSION);
+        buffer.putInt(HEADER_SLOTS, slots);
+        buffer.putInt(HEADER_WIDTH, width);
+        buffer.putInt(HEADER_HEIGHT, height);
+        buffer.putLong(HEADER_NEXT, 0);
+    }
+
+    /**
+     * Copies a screenshot into the next slot, overwriting the oldest one
+     * Neither allocates nor encodes anything as long as the image is backed by ints (which the ones from the Robot are)
+     *
+     * @param image the screenshot
+     * @param round the round of the solver
+     * @param rect  where the screenshot was taken
+     */
+    public void record(BufferedImage image, int round, Rectangle rect) {
+        int slotStart = HEADER_SIZE + (int) (next % slots) * slotSize;
+        int w = Math.min(width, image.getWidth());
+        int h = Math.min(height, image.getHeight());
+
+        // Mark the slot as invalid while we're writing it
+        buffer.putLong(slotStart + SLOT_SEQUENCE, -1);
+
+        int pixelStart = (slotStart + SLOT_HEADER_SIZE) / 4;
+        WritableRaster raster = image.getRaster();
+        if (raster.getDataBuffer() instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+            DataBufferInt data = (DataBufferInt) raster.getDataBuffer();
+            int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            // sub images share the data with their parent, so we need to find where they start
+            int offset = data.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+
+            for (int y = 0; y < h; y++) {
+                pixels.position(pixelStart + y * width);
+                pixels.put(data.getData(), offset + y * stride, w);
+            }
+        } else {
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) pixels.put(pixelStart + y * width + x, image.getRGB(x, y));
+            }
+        }
+
+        buffer.putLong(slotStart + SLOT_TIMESTAMP, System.currentTimeMillis());
+        buffer.putInt(slotStart + SLOT_ROUND, round);
+        buffer.putInt(slotStart + SLOT_X, rect.x);
+        buffer.putInt(slotStart + SLOT_Y, rect.y);
+        buffer.putInt(slotStart + SLOT_WIDTH, w);
+        buffer.putInt(slotStart + SLOT_HEIGHT, h);
+        buffer.putLong(slotStart + SLOT_SEQUENCE, next);
+
+        buffer.putLong(HEADER_NEXT, ++next);
+    }
+
+    /**
+     * Writes everything to the disk and closes the file
+     *
+     * @throws IOException if the file can't be closed
+     */
+    public void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+
+    /**
+     * Extracts all frames of a ring file as png, the oldest first
+     *
+     * @param ring   the ring file
+     * @param output the directory to put the pngs into
+     * @return how many frames were extracted
+     * @throws IOException if something can't be read or written
+     */
+    static int extract(File ring, File output) throws IOException {
+        if (!output.isDirectory() && !output.mkdirs()) throw new IOException("Can't create " + output);
+
+        try (RandomAccessFile file = new RandomAccessFile(ring, "r")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            if (buffer.getInt(HEADER_MAGIC) != MAGIC) throw new IOException("Not a ring file: " + ring);
+            if (buffer.getInt(HEADER_VERSION) != VERSION) throw new IOException("Unknown version " + buffer.getInt(HEADER_VERSION));
+
+            int slots = buffer.getInt(HEADER_SLOTS);
+            int width = buffer.getInt(HEADER_WIDTH);
+            int height = buffer.getInt(HEADER_HEIGHT);
+            int slotSize = SLOT_HEADER_SIZE + width * height * 4;
+            long next = buffer.getLong(HEADER_NEXT);
+
+            int count = 0;
+            for (long sequence = Math.max(0, next - slots); sequence < next; sequence++) {
+                int slotStart = HEADER_SIZE + (int) (sequence % slots) * slotSize;
+                if (buffer.getLong(slotStart + SLOT_SEQUENCE) != sequence) continue; // was being written
+
+                int w = buffer.getInt(slotStart + SLOT_WIDTH);
+                int h = buffer.getInt(slotStart + SLOT_HEIGHT);
+                int round = buffer.getInt(slotStart + SLOT_ROUND);
+
+                BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+                for (int y = 0; y < h; y++) {
+                    for (int x = 0; x < w; x++) {
+                        image.setRGB(x, y, buffer.getInt(slotStart + SLOT_HEADER_SIZE + (y * width + x) * 4));
+                    }
+                }
+
+                String name = String.format("frame-%06d-round-%03d.png", sequence, round);
+                ImageIO.write(image, "png", new File(output, name));
+                System.out.printf("%s  %tF %<tT.%<tL  at (%d/%d) %dx%d\n", name, buffer.getLong(slotStart + SLOT_TIMESTAMP),
+                        buffer.getInt(slotStart + SLOT_X), buffer.getInt(slotStart + SLOT_Y), w, h);
+                count++;
+            }
+
+            return count;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java FrameRecorder <ring file> <output directory>");
+            return;
+        }
+
+        try {
+            System.out.println(extract(new File(args[0]), new File(args[1])) + " frames extracted");
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+}
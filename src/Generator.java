@@ -0,0 +1,155 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Makes games which can be solved without guessing
+ * <p>
+ * Random games are played in memory by the solver with guessing turned off,
+ * a game is thrown away as soon as the solver would have to guess and the next one is tried.
+ * The games are made in parallel, each one from its own seed, so the same arguments always give the same games.
+ * <p>
+ * The solved games are written as positions (see PositionCodec) with the mines flagged.
+ * <p>
+ * Usage: java Generator [--count 10] [--density 0.15] [--seed 1] [--threads &lt;cpus&gt;] [--out &lt;file&gt;] [sizes...]
+ * A size is either &lt;columns&gt;x&lt;rows&gt; or just one number for a square game, 30x16 by default.
+ */
+public class Generator {
+
+    /**
+     * A game without guessing and how many tries it took to find it
+     */
+    private static class Game {
+
+        final int attempts;
+        final Position solved;
+
+        Game(int attempts, Position solved) {
+            this.attempts = attempts;
+            this.solved = solved;
+        }
+
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int count = 10, threads = Runtime.getRuntime().availableProcessors();
+        double density = 0.15;
+        long seed = 1;
+        String out = null;
+        List<int[]> sizes = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--count":
+                    count = Integer.parseInt(args[++i]);
+                    break;
+                case "--density":
+                    density = Double.parseDouble(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--out":
+                    out = args[++i];
+                    break;
+                default:
+                    String[] size = args[i].split("x");
+                    int countColumn = Integer.parseInt(size[0]);
+                    sizes.add(new int[]{countColumn, size.length > 1 ? Integer.parseInt(size[1]) : countColumn});
+            }
+        }
+        if (sizes.isEmpty()) sizes.add(new int[]{30, 16});
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+
+        try (Writer writer = out == null ? Writer.nullWriter()
+                : new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+
+            for (int[] size : sizes) {
+                int countColumn = size[0], countRow = size[1];
+                int countMines = (int) Math.round(countColumn * countRow * density);
+
+                long time = System.nanoTime();
+                List<Future<Game>> games = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    long gameSeed = seed * 1_000_003L + i;
+                    games.add(workers.submit(() -> generate(countColumn, countRow, countMines, gameSeed)));
+                }
+
+                int attempts = 0;
+                for (Future<Game> future : games) {
+                    Game game = future.get();
+                    attempts += game.attempts;
+                    PositionCodec.writeText(game.solved, writer);
+                }
+                time = System.nanoTime() - time;
+
+                System.out.printf("%dx%d with %d mines: %d games out of %d tries in %.1fs (%.1f games, %.0f tries per second)\n",
+                        countColumn, countRow, countMines, count, attempts, time / 1e9, count / (time / 1e9), attempts / (time / 1e9));
+            }
+
+        } catch (IOException | ExecutionException e) {
+            System.err.println(e.getMessage());
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Tries random games until one can be solved without guessing
+     *
+     * @param seed where the random games come from
+     * @return the first one which worked
+     */
+    private static Game generate(int countColumn, int countRow, int countMines, long seed) {
+        Random random = new Random(seed);
+
+        for (int attempts = 1; ; attempts++) {
+            MemoryBoard board = MemoryBoard.random(countColumn, countRow, countMines, random.nextLong());
+
+            MineSweeperSolver solver = new MineSweeperSolver(board);
+            solver.setGuessing(false);
+            // The solver talks a lot, nobody would see what's going on
+            solver.setQuiet(true);
+            if (solver.play() == MineSweeperSolver.Result.WON)
+                return new Game(attempts, new Position(board.getField(), countMines));
+        }
+    }
+
+}
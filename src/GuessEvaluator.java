@@ -0,0 +1,279 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Picks the guess which tells us the most
+ * <p>
+ * The safest block isn't always the best guess, one which opens up half the game beats one in a corner
+ * which shows a number nobody can do anything with. So for the blocks which are almost as safe as the safest one,
+ * each number they could show is put in and the tank is asked how many blocks would be safe then.
+ * That's weighted by how likely the number is and gives how much the guess is expected to reveal.
+ * <p>
+ * A what-if only looks at the blocks up to RADIUS away from the guess. The blocks on the edge of that are taken
+ * as closed ones, which can only make the tank find less - never something wrong.
+ * All the what-ifs are independent, so they run in parallel on a fork-join pool. Once the time is up,
+ * the best of the guesses which are done so far is taken, the safest one if none is.
+ * The what-ifs which are still running stop on their own at the same time, so they don't get in the way of the next round.
+ */
+class GuessEvaluator {
+
+    // How much less safe than the safest block a guess may be to be looked at
+    static final double MARGIN = 0.05;
+    static final int MAX_CANDIDATES = 16;
+    private static final int RADIUS = 3;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+
+    /**
+     * A block we could guess and what we know about it
+     */
+    private static class Candidate {
+
+        final Point block;
+        final double safety;
+        final State[][] around; // the states up to RADIUS + 1 away, null outside the game
+        ForkJoinTask<Double> reveals;
+
+        Candidate(Point block, double safety, State[][] around) {
+            this.block = block;
+            this.safety = safety;
+            this.around = around;
+        }
+
+        /**
+         * @return the chance it's safe times how many blocks it's expected to make safe, plus one for itself
+         */
+        double score() throws ExecutionException, InterruptedException {
+            return safety * (1 + reveals.get());
+        }
+
+    }
+
+    private final Field field;
+    private int countEvaluated;
+
+    GuessEvaluator(Field field) {
+        this.field = field;
+    }
+
+    /**
+     * Picks a guess
+     *
+     * @param blocks   the blocks we could guess
+     * @param safeties how likely each of them is safe
+     * @param budget   how many ms we have
+     * @return the guess
+     */
+    Point choose(List<Point> blocks, List<Double> safeties, long budget) {
+        long deadline = System.nanoTime() + budget * 1_000_000L;
+
+        int safest = 0;
+        for (int i = 1; i < blocks.size(); i++) if (safeties.get(i) > safeties.get(safest)) safest = i;
+
+        // The ones which are almost as safe, the safest first
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            if (safeties.get(i) < safeties.get(safest) - MARGIN) continue;
+            candidates.add(new Candidate(blocks.get(i), safeties.get(i), copyAround(blocks.get(i))));
+        }
+        candidates.sort((a, b) -> Double.compare(b.safety, a.safety));
+        if (candidates.size() > MAX_CANDIDATES) candidates.subList(MAX_CANDIDATES, candidates.size()).clear();
+
+        countEvaluated = 0;
+        if (candidates.size() == 1) return blocks.get(safest);
+
+        for (Candidate candidate : candidates) candidate.reveals = POOL.submit(new Reveals(candidate.around, deadline));
+
+        Candidate best = null;
+        double bestScore = -1;
+        for (Candidate candidate : candidates) {
+            try {
+                long left = deadline - System.nanoTime();
+                if (left > 0) candidate.reveals.get(left, TimeUnit.NANOSECONDS);
+                if (!candidate.reveals.isDone()) continue;
+
+                double score = candidate.score();
+                if (Double.isNaN(score)) continue; // ran out of time
+                countEvaluated++;
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = candidate;
+                }
+            } catch (TimeoutException | ExecutionException e) {
+                // Too late or broken, the others might still be there
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+
+        // What isn't done by now won't be needed anymore
+        for (Candidate candidate : candidates) candidate.reveals.cancel(false);
+
+        return best != null ? best.block : blocks.get(safest);
+    }
+
+    /**
+     * @return how many guesses were looked at the last time
+     */
+    int getCountEvaluated() {
+        return countEvaluated;
+    }
+
+    /**
+     * The states around a block, copied so the what-ifs don't depend on the game changing meanwhile
+     */
+    private State[][] copyAround(Point block) {
+        int side = 2 * RADIUS + 3;
+        State[][] around = new State[side][side];
+        for (int dx = 0; dx < side; dx++) {
+            for (int dy = 0; dy < side; dy++) {
+                int x = block.x + dx - RADIUS - 1, y = block.y + dy - RADIUS - 1;
+                if (x >= 0 && y >= 0 && x < field.getCountColumn() && y < field.getCountRow()) around[dx][dy] = field.get(x, y);
+            }
+        }
+        return around;
+    }
+
+    /**
+     * How many blocks a guess in the middle of the states is expected to make safe, NaN if there wasn't enough time
+     * Every number it could show is a what-if of its own.
+     */
+    private static class Reveals extends RecursiveTask<Double> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final State[][] around;
+        private final long deadline;
+
+        Reveals(State[][] around, long deadline) {
+            this.around = around;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Double compute() {
+            if (System.nanoTime() > deadline) return Double.NaN;
+
+            int middle = RADIUS + 1, flags = 0, closed = 0;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    State state = around[middle + dx][middle + dy];
+                    if ((dx != 0 || dy != 0) && state == State.BLOCK_FLAG) flags++;
+                    if ((dx != 0 || dy != 0) && state == State.BLOCK_CLOSED) closed++;
+                }
+            }
+
+            List<WhatIf> whatIfs = new ArrayList<>();
+            for (int number = flags; number <= flags + closed; number++) whatIfs.add(new WhatIf(around, number, deadline));
+            invokeAll(whatIfs);
+            for (WhatIf whatIf : whatIfs) if (whatIf.join() == null) return Double.NaN;
+
+            // Weigh each number by how many ways the mines can be placed with it
+            double max = Double.NEGATIVE_INFINITY;
+            for (WhatIf whatIf : whatIfs) max = Math.max(max, whatIf.join()[0]);
+            if (max == Double.NEGATIVE_INFINITY) return 0.0;
+
+            double weights = 0, reveals = 0;
+            for (WhatIf whatIf : whatIfs) {
+                double weight = Math.exp(whatIf.join()[0] - max);
+                weights += weight;
+                reveals += weight * whatIf.join()[1];
+            }
+            return reveals / weights;
+        }
+
+    }
+
+    /**
+     * Puts a number in the middle and lets the tank look at it
+     * Gives the logarithm of the amount of solutions (-Infinity if there is none) and how many blocks are safe,
+     * null if the tank didn't get done before the deadline.
+     */
+    private static class WhatIf extends RecursiveTask<double[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final State[][] around;
+        private final int number;
+        private final long deadline;
+
+        WhatIf(State[][] around, int number, long deadline) {
+            this.around = around;
+            this.number = number;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (System.nanoTime() > deadline) return null;
+
+            // Only as much as is inside the game
+            int fromX = 0, fromY = 0, toX = around.length, toY = around.length;
+            while (around[fromX][RADIUS + 1] == null) fromX++;
+            while (around[toX - 1][RADIUS + 1] == null) toX--;
+            while (around[RADIUS + 1][fromY] == null) fromY++;
+            while (around[RADIUS + 1][toY - 1] == null) toY--;
+
+            Field field = new Field(toX - fromX, toY - fromY);
+            boolean[] edge = new boolean[(toX - fromX) * (toY - fromY)];
+            for (int x = fromX; x < toX; x++) {
+                for (int y = fromY; y < toY; y++) {
+                    State state = around[x][y];
+                    // Numbers on the edge have blocks around which we don't see, they're taken as closed ones
+                    if ((x == 0 || y == 0 || x == around.length - 1 || y == around.length - 1) && state.getVal() >= 0) {
+                        edge[(x - fromX) * (toY - fromY) + y - fromY] = true;
+                        state = State.BLOCK_CLOSED;
+                    }
+                    field.set(x - fromX, y - fromY, state);
+                }
+            }
+            field.set(RADIUS + 1 - fromX, RADIUS + 1 - fromY, State.values()[State.BLOCK_EMPTY.ordinal() + number]);
+
+            Tank tank = new Tank(field);
+            ArrayList<Tank.Region> regions = tank.solveFrontier(-1, deadline);
+            if (tank.hasExpired()) return null;
+
+            double solutions = 0, safe = 0;
+            for (Tank.Region region : regions) {
+                if (region.solutions == 0) return new double[]{Double.NEGATIVE_INFINITY, 0};
+                solutions += Math.log(region.solutions);
+                for (int i = 0; i < region.blocks.size(); i++) {
+                    Point block = region.blocks.get(i);
+                    if (region.mineCounts[i] == 0 && !edge[block.x * (toY - fromY) + block.y]) safe++;
+                }
+            }
+            return new double[]{solutions, safe};
+        }
+
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A board which reads its screenshots from recorded frames instead of the screen
+ * <p>
+ * Every refresh looks at the next frame, the last one stays once we ran out of them.
+ * Nothing is clicked, the actions which would have been issued are recorded instead.
+ */
+public class ImageBoard extends Board {
+
+    /**
+     * An action the solver wanted to do
+     */
+    static class Action {
+
+        enum Type {OPEN, OPEN_SURROUNDING, FLAG, RESTART}
+
+        final Type type;
+        final int x, y;
+
+        Action(Type type, int x, int y) {
+            this.type = type;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public String toString() {
+            return type + " (" + (x + 1) + "/" + (y + 1) + ")";
+        }
+    }
+
+    private final List<BufferedImage> frames;
+    private final List<Action> actions = new ArrayList<>();
+    private int currentFrame;
+
+    public ImageBoard(List<BufferedImage> frames, int countMines) throws BoardException {
+        if (frames.isEmpty()) throw new BoardException("No frames, no game");
+        this.frames = frames;
+        locate(frames.get(0), countMines);
+    }
+
+    public ImageBoard(File source, int countMines) throws BoardException, IOException {
+        this(readFrames(source), countMines);
+    }
+
+    /**
+     * Mirrors the current frame and moves on to the next one
+     *
+     * @return true if values have changed
+     * @throws BoardException If the game ended
+     */
+    @Override
+    public boolean refresh() throws BoardException {
+        try {
+            return super.refresh();
+        } finally {
+            if (hasNextFrame()) currentFrame++;
+        }
+    }
+
+    @Override
+    public boolean restart() {
+        actions.add(new Action(Action.Type.RESTART, 0, 0));
+        getField().reset();
+        return true;
+    }
+
+    @Override
+    public void settle(long busy) {
+        // The frames are already there
+    }
+
+    @Override
+    public void end() {
+        // There is no mouse to move back
+    }
+
+    @Override
+    protected BufferedImage capture(Rectangle rect) {
+        BufferedImage frame = frames.get(currentFrame);
+        rect = rect.intersection(new Rectangle(0, 0, frame.getWidth(), frame.getHeight()));
+        if (rect.isEmpty()) return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        if (rect.x == 0 && rect.y == 0 && rect.width == frame.getWidth() && rect.height == frame.getHeight()) return frame;
+        return frame.getSubimage(rect.x, rect.y, rect.width, rect.height);
+    }
+
+    @Override
+    protected void click(int x, int y, int button) {
+        switch (button) {
+            case InputEvent.BUTTON1_DOWN_MASK:
+                actions.add(new Action(Action.Type.OPEN, x, y));
+                break;
+            case InputEvent.BUTTON2_DOWN_MASK:
+                actions.add(new Action(Action.Type.OPEN_SURROUNDING, x, y));
+                break;
+            case InputEvent.BUTTON3_DOWN_MASK:
+                actions.add(new Action(Action.Type.FLAG, x, y));
+                break;
+        }
+    }
+
+    public boolean hasNextFrame() {
+        return currentFrame < frames.size() - 1;
+    }
+
+    public int getCountFrames() {
+        return frames.size();
+    }
+
+    /**
+     * Returns the recorded actions
+     *
+     * @return the actions in the order they were issued
+     */
+    public List<Action> getActions() {
+        return actions;
+    }
+
+    /**
+     * Reads the frames from a png, an animated gif or a directory full of pngs (sorted by name)
+     *
+     * @param source the file or directory
+     * @return the frames
+     * @throws IOException if something can't be read
+     */
+    static List<BufferedImage> readFrames(File source) throws IOException {
+        List<BufferedImage> frames = new ArrayList<>();
+
+        if (source.isDirectory()) {
+            File[] files = source.listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
+            if (files == null) throw new IOException("Can't list " + source);
+            Arrays.sort(files);
+            for (File file : files) frames.add(toRGB(ImageIO.read(file)));
+
+        } else if (source.getName().toLowerCase().endsWith(".gif")) {
+            readGif(source, frames);
+
+        } else {
+            BufferedImage image = ImageIO.read(source);
+            if (image == null) throw new IOException("Not an image: " + source);
+            frames.add(toRGB(image));
+        }
+
+        return frames;
+    }
+
+    /**
+     * Gif frames usually only contain the part that changed, so every one is drawn over the previous
+     */
+    private static void readGif(File source, List<BufferedImage> frames) throws IOException {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            reader.setInput(in, false);
+
+            BufferedImage canvas = null;
+            for (int i = 0; i < reader.getNumImages(true); i++) {
+                BufferedImage image = reader.read(i);
+                Node root = reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+
+                int left = 0, top = 0;
+                boolean clear = false;
+                for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+                    NamedNodeMap attributes = node.getAttributes();
+                    if (node.getNodeName().equals("ImageDescriptor")) {
+                        left = Integer.parseInt(attributes.getNamedItem("imageLeftPosition").getNodeValue());
+                        top = Integer.parseInt(attributes.getNamedItem("imageTopPosition").getNodeValue());
+                    } else if (node.getNodeName().equals("GraphicControlExtension")) {
+                        clear = attributes.getNamedItem("disposalMethod").getNodeValue().equals("restoreToBackgroundColor");
+                    }
+                }
+
+                if (canvas == null) canvas = new BufferedImage(screenWidth(reader.getStreamMetadata(), image.getWidth() + left),
+                        screenHeight(reader.getStreamMetadata(), image.getHeight() + top), BufferedImage.TYPE_INT_RGB);
+
+                Graphics2D g = canvas.createGraphics();
+                g.drawImage(image, left, top, null);
+                g.dispose();
+
+                frames.add(toRGB(canvas));
+
+                if (clear) {
+                    g = canvas.createGraphics();
+                    g.clearRect(left, top, image.getWidth(), image.getHeight());
+                    g.dispose();
+                }
+            }
+
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static int screenWidth(IIOMetadata metadata, int fallback) {
+        return screenSize(metadata, "logicalScreenWidth", fallback);
+    }
+
+    private static int screenHeight(IIOMetadata metadata, int fallback) {
+        return screenSize(metadata, "logicalScreenHeight", fallback);
+    }
+
+    private static int screenSize(IIOMetadata metadata, String attribute, int fallback) {
+        if (metadata == null) return fallback;
+        Node root = metadata.getAsTree("javax_imageio_gif_stream_1.0");
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeName().equals("LogicalScreenDescriptor")) {
+                return Math.max(fallback, Integer.parseInt(node.getAttributes().getNamedItem(attribute).getNodeValue()));
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Copies an image into the same format the robot delivers
+     */
+    private static BufferedImage toRGB(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = copy.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return copy;
+    }
+
+}
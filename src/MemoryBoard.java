@@ -0,0 +1,241 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.awt.event.InputEvent;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A game which only exists in memory, the mines are known to the board but not to the solver
+ * <p>
+ * Clicks are played out directly, the solver sees the result after the next refresh - just like on the screen.
+ */
+public class MemoryBoard extends Board {
+
+    private final boolean[] mines;
+    private final boolean[] revealed;
+
+    // Blocks which were revealed since the last refresh
+    private final int[] pending;
+    private int countPending;
+
+    // For the flood fill when an empty block is opened
+    private final int[] stack;
+
+    /**
+     * Creates a game with the given mines
+     *
+     * @param mines where the mines are, [column][row]
+     */
+    public MemoryBoard(boolean[][] mines) {
+        int countColumn = mines.length, countRow = mines[0].length;
+        this.mines = new boolean[countColumn * countRow];
+
+        int countMines = 0;
+        for (int x = 0; x < countColumn; x++) {
+            for (int y = 0; y < countRow; y++) {
+                this.mines[x * countRow + y] = mines[x][y];
+                if (mines[x][y]) countMines++;
+            }
+        }
+
+        mirror(countColumn, countRow, countMines);
+        revealed = new boolean[this.mines.length];
+        pending = new int[this.mines.length];
+        stack = new int[this.mines.length];
+    }
+
+    /**
+     * Creates a game with randomly placed mines
+     * The corners and the blocks next to them stay free, since that's where the solver starts
+     *
+     * @param countColumn the amount of columns
+     * @param countRow    the amount of rows
+     * @param countMines  the amount of mines
+     * @param seed        for the random placement
+     * @return the game
+     */
+    public static MemoryBoard random(int countColumn, int countRow, int countMines, long seed) {
+        boolean[][] mines = new boolean[countColumn][countRow];
+        Random random = new Random(seed);
+
+        for (int placed = 0; placed < countMines; ) {
+            int x = random.nextInt(countColumn), y = random.nextInt(countRow);
+            if (mines[x][y] || ((x <= 1 || x >= countColumn - 2) && (y <= 1 || y >= countRow - 2))) continue;
+            mines[x][y] = true;
+            placed++;
+        }
+
+        return new MemoryBoard(mines);
+    }
+
+    /**
+     * Shows the blocks which were opened since the last refresh
+     *
+     * @return true if values have changed
+     * @throws BoardException If the game ended
+     */
+    @Override
+    public boolean refresh() throws BoardException {
+        Field field = getField();
+        boolean change = countPending > 0;
+
+        for (int i = 0; i < countPending; i++) {
+            int x = pending[i] / getCountRow(), y = pending[i] % getCountRow();
+            field.set(x, y, stateOf(x, y));
+        }
+
+        for (int i = 0; i < countPending; i++) {
+            int x = pending[i] / getCountRow(), y = pending[i] % getCountRow();
+            if (mines[pending[i]]) {
+                countPending = 0;
+                throw new BoardException("Well... there was a mine at (" + (x + 1) + "/" + (y + 1) + ")");
+            }
+        }
+
+        countPending = 0;
+        return change;
+    }
+
+    @Override
+    public boolean restart() {
+        Arrays.fill(revealed, false);
+        countPending = 0;
+        getField().reset();
+        return true;
+    }
+
+    @Override
+    public void settle(long busy) {
+        // Nothing to wait for
+    }
+
+    @Override
+    public void end() {
+        // There is no mouse to move back
+    }
+
+    @Override
+    protected void click(int x, int y, int button) {
+        switch (button) {
+            case InputEvent.BUTTON1_DOWN_MASK:
+                reveal(x, y);
+                break;
+            case InputEvent.BUTTON2_DOWN_MASK:
+                // Like the game: only opens the ones around if there are enough flags
+                if (!revealed[x * getCountRow() + y] || countMinesAround(x, y) != countFlagsAround(x, y)) return;
+                for (int i = Math.max(0, x - 1); i <= Math.min(getCountColumn() - 1, x + 1); i++) {
+                    for (int j = Math.max(0, y - 1); j <= Math.min(getCountRow() - 1, y + 1); j++) {
+                        if (getField().get(i, j) != State.BLOCK_FLAG) reveal(i, j);
+                    }
+                }
+                break;
+        }
+        // BUTTON3: the board already knows about the flag
+    }
+
+    /**
+     * Is there a mine?
+     *
+     * @param x why are you reading this?
+     * @param y you seriously should understand it
+     * @return true if there is one
+     */
+    public boolean isMine(int x, int y) {
+        return mines[x * getCountRow() + y];
+    }
+
+    /**
+     * What the game would show if this block was open
+     *
+     * @param x why are you reading this?
+     * @param y you seriously should understand it
+     * @return the state
+     */
+    public State stateOf(int x, int y) {
+        if (mines[x * getCountRow() + y]) return State.BLOCK_MINE_EXPLODED;
+        return State.values()[State.BLOCK_EMPTY.ordinal() + countMinesAround(x, y)];
+    }
+
+    /**
+     * Opens a block and all the ones around if it is empty
+     */
+    private void reveal(int x, int y) {
+        int countRow = getCountRow();
+        if (!markRevealed(x, y)) return;
+
+        int size = 0;
+        stack[size++] = x * countRow + y;
+
+        while (size > 0) {
+            int i = stack[--size];
+            pending[countPending++] = i;
+
+            int bx = i / countRow, by = i % countRow;
+            if (mines[i] || countMinesAround(bx, by) > 0) continue;
+
+            for (int nx = Math.max(0, bx - 1); nx <= Math.min(getCountColumn() - 1, bx + 1); nx++) {
+                for (int ny = Math.max(0, by - 1); ny <= Math.min(countRow - 1, by + 1); ny++) {
+                    if (markRevealed(nx, ny)) stack[size++] = nx * countRow + ny;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the block wasn't revealed (or flagged) before
+     */
+    private boolean markRevealed(int x, int y) {
+        int i = x * getCountRow() + y;
+        if (revealed[i] || getField().get(x, y) == State.BLOCK_FLAG) return false;
+        revealed[i] = true;
+        return true;
+    }
+
+    /**
+     * Counts the mines around a block
+     */
+    private int countMinesAround(int x, int y) {
+        int count = 0;
+        for (int i = Math.max(0, x - 1); i <= Math.min(getCountColumn() - 1, x + 1); i++) {
+            for (int j = Math.max(0, y - 1); j <= Math.min(getCountRow() - 1, y + 1); j++) {
+                if (mines[i * getCountRow() + j]) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the flags the solver put around a block
+     */
+    private int countFlagsAround(int x, int y) {
+        int count = 0;
+        for (int i = Math.max(0, x - 1); i <= Math.min(getCountColumn() - 1, x + 1); i++) {
+            for (int j = Math.max(0, y - 1); j <= Math.min(getCountRow() - 1, y + 1); j++) {
+                if (getField().get(i, j) == State.BLOCK_FLAG) count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -21,11 +21,17 @@ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
 OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
 */
+import java.awt.*;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.List;
 
 /**
  * Minesweeper Solver
@@ -33,53 +39,338 @@ import java.util.LinkedList;
  */
 public class MineSweeperSolver {
 
+    /**
+     * How a game ended
+     */
+    enum Result {WON, LOST, STUCK}
+
+    /**
+     * Options:
+     * --record &lt;file&gt; [slots]  keeps the last screenshots in a ring file (see FrameRecorder)
+     * --continuous [games]     plays game after game without asking, forever if there's no number
+     * --windows                plays all the games on the screen at the same time, each one in its own thread
+     * --warmup                 gets the solver compiled while the game is located (see WarmUp)
+     */
     public static void main(String[] args) {
-        new MineSweeperSolver();
+        File record = null;
+        int recordSlots = 64;
+        boolean continuous = false, windows = false, warm = false;
+        int games = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--record":
+                    record = new File(args[++i]);
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) recordSlots = Integer.parseInt(args[++i]);
+                    break;
+                case "--continuous":
+                    continuous = true;
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) games = Integer.parseInt(args[++i]);
+                    break;
+                case "--windows":
+                    windows = true;
+                    break;
+                case "--warmup":
+                    warm = true;
+                    break;
+                default:
+                    System.err.println("Don't know the option " + args[i]);
+                    return;
+            }
+        }
+
+        if (warm) warmUp = WarmUp.start();
+
+        try {
+
+            if (windows) playWindows(continuous ? games : 1, record, recordSlots);
+            else if (continuous) playContinuously(games, record, recordSlots);
+            else playInteractively(record, recordSlots);
+
+        } catch (Board.BoardException | IOException | AWTException | InterruptedException e) {
+            System.err.println(e.getMessage());
+        }
     }
 
-    private Board board;
-    private State[][] field;
+    /**
+     * Asks for the amount of mines and after each game if there should be another one
+     */
+    private static void playInteractively(File record, int recordSlots) throws Board.BoardException, IOException {
+
+        // Get the number of mines from the user
+        int countMines = getUserInput("Enter the amount of mines");
+
+        // Initialize the board
+        Board board = locate(countMines);
+        MineSweeperSolver solver = new MineSweeperSolver(board);
+        if (record != null) board.startRecording(record, recordSlots);
+        finishWarmUp();
+
+        do {
+
+            solver.play();
+
+        } while (getUserInput("\nType 1 for another game") == 1 && board.restart());
+
+        board.stopRecording();
+
+    }
+
+    /**
+     * Plays without asking anyone, the amount of mines is read from the game
+     *
+     * @param games how many games to play, 0 for no end
+     */
+    private static void playContinuously(int games, File record, int recordSlots) throws Board.BoardException, IOException {
+
+        Board board = locate(0);
+        if (record != null) board.startRecording(record, recordSlots);
+        finishWarmUp();
+        playGames(board, games, "");
+        board.stopRecording();
+
+    }
+
+    /**
+     * Plays all the games on the screen at once, every game has its own worker
+     * They share the screenshots and take turns with the mouse (see Screen).
+     *
+     * @param games how many games to play in each window, 0 for no end
+     */
+    private static void playWindows(int games, File record, int recordSlots) throws Board.BoardException, IOException, AWTException, InterruptedException {
+
+        long locateTime = System.currentTimeMillis();
+        List<Board> boards = Board.locateAll(new Screen(), 0);
+        System.out.printf("Found %d games in %dms\n", boards.size(), System.currentTimeMillis() - locateTime);
+        finishWarmUp();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < boards.size(); i++) {
+            Board board = boards.get(i);
+            String name = "Window " + (i + 1) + " (" + board.getCountColumn() + "x" + board.getCountRow() + ")";
+            if (record != null) board.startRecording(new File(record.getPath() + "." + (i + 1)), recordSlots);
+
+            Thread worker = new Thread(() -> {
+                try {
+                    playGames(board, games, name + ": ");
+                    board.stopRecording();
+                } catch (IOException e) {
+                    System.err.println(name + ": " + e.getMessage());
+                }
+            }, name);
+            worker.start();
+            workers.add(worker);
+        }
+
+        for (Thread worker : workers) worker.join();
+
+    }
+
+    /**
+     * Plays game after game on a board and keeps track how it goes
+     *
+     * @param games how many games to play, 0 for no end
+     * @param name  goes in front of what we print
+     */
+    private static void playGames(Board board, int games, String name) {
+
+        MineSweeperSolver solver = new MineSweeperSolver(board);
+        solver.setPrefix(name);
+
+        int won = 0, lost = 0, stuck = 0;
+        long start = System.nanoTime();
+
+        for (int game = 1; games == 0 || game <= games; game++) {
+
+            if (game > 1) {
+                board.restart();
+                try {
+                    board.settle();
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+
+            // The counter shows all mines at the start of the game
+            int countMines = board.readMineCounter();
+            if (countMines > 0) board.setCountMines(countMines);
+            else if (board.getCountMines() == 0) board.setCountMines(getUserInput(name + "Can't read the mine counter, enter the amount of mines"));
+
+            long time = System.nanoTime();
+            Result result = solver.play();
+            time = System.nanoTime() - time;
+
+            switch (result) {
+                case WON:
+                    won++;
+                    break;
+                case LOST:
+                    lost++;
+                    break;
+                case STUCK:
+                    stuck++;
+                    break;
+            }
+
+            double hours = (System.nanoTime() - start) / 3.6e12;
+            System.out.printf("\n%sGame %d: %s in %dms (%d won, %d lost, %d stuck, %.0f games/hour)\n", name, game, result, time / 1000000,
+                    won, lost, stuck, game / hours);
+        }
 
-    public MineSweeperSolver() {
+    }
 
+    /**
+     * Waits for the warm-up, if there is one, before the first game starts
+     */
+    private static void finishWarmUp() {
+        if (warmUp == null) return;
         try {
+            warmUp.finish();
+            System.out.printf("Warmed up in %dms (%d rounds)\n", warmUp.getTime(), warmUp.getRounds());
+        } catch (InterruptedException e) {
+            // Then it'll have to be cold
+        }
+        warmUp = null;
+    }
 
-            // Get the number of mines from the user
-            int countMines = getUserInput("Enter the amount of mines");
+    /**
+     * Finds the game on the screen
+     */
+    private static Board locate(int countMines) throws Board.BoardException {
+        long locateTime = System.currentTimeMillis();
+        Board board = new Board(countMines);
+        System.out.printf("Found a %dx%d game in %dms\n", board.getCountColumn(), board.getCountRow(), System.currentTimeMillis() - locateTime);
+        return board;
+    }
 
-            // Initialize the board
-            board = new Board(countMines);
-            field = board.getField();
+    private static WarmUp warmUp;
+    private static final BufferedReader INPUT = new BufferedReader(new InputStreamReader(System.in));
 
-            do {
+    // How long we may look ahead before a guess, in milliseconds - as long as the tank just took, within these
+    static final int GUESS_MIN_TIME = 5;
+    static final int GUESS_MAX_TIME = 50;
 
-                // Just open some fields
-                board.open(0, 0);
-                board.open(0, board.getCountRow() - 1);
-                board.open(board.getCountColumn() - 1, 0);
-                board.open(board.getCountColumn() - 1, board.getCountRow() - 1);
+    private Board board;
+    private Field field;
+    private Tank tank;
+    private GuessEvaluator guesser;
+    private Patterns patterns;
+    private int patternsChecked; // Field.getCountChanges() when the patterns were looked up the last time
+    private final int[] windowSeen; // when each window was looked up the last time, to do it only once a round
+    private int windowsChecked;
+    private boolean guessing = true;
+    private PrintStream out = System.out, err = System.err;
+
+    // The blocks we clicked on (or around) since the game last changed
+    private final ArrayList<Point> pending = new ArrayList<>();
 
-                // Solve the game
-                solver();
+    /**
+     * Plays on a board without asking anyone anything
+     * Everything is kept for the next game on the same board
+     *
+     * @param board the game
+     */
+    MineSweeperSolver(Board board) {
+        this.board = board;
+        field = board.getField();
+        tank = new Tank(field);
+        guesser = new GuessEvaluator(field);
+        patterns = Patterns.get();
+        windowSeen = new int[(field.getCountColumn() + 2) * (field.getCountRow() + 2)];
+    }
 
-                // move mouse back
-                board.end();
+    /**
+     * Without guessing the solver gives up (STUCK) where it would have to guess
+     *
+     * @param guessing false to never guess
+     */
+    void setGuessing(boolean guessing) {
+        this.guessing = guessing;
+    }
 
-            } while (getUserInput("\nType 1 for another game") == 1 && board.restart());
+    /**
+     * A quiet solver doesn't print anything, not even how the game ended
+     *
+     * @param quiet true to keep it quiet
+     */
+    void setQuiet(boolean quiet) {
+        out = quiet ? new PrintStream(OutputStream.nullOutputStream()) : System.out;
+        err = quiet ? out : System.err;
+    }
 
-        } catch (Board.BoardException e) {
-            System.err.println(e.getMessage());
+    /**
+     * Puts something in front of every line the solver prints, to tell the games apart
+     *
+     * @param prefix like "Window 1 (30x16): ", nothing changes if it's empty
+     */
+    void setPrefix(String prefix) {
+        if (prefix.isEmpty()) return;
+        out = new PrintStream(new PrefixedOutput(System.out, prefix));
+        err = new PrintStream(new PrefixedOutput(System.err, prefix));
+    }
+
+    /**
+     * Writes whole lines with a prefix, all at once so lines of other threads don't get in between
+     */
+    private static class PrefixedOutput extends OutputStream {
+
+        private final PrintStream target;
+        private final byte[] prefix;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        PrefixedOutput(PrintStream target, String prefix) {
+            this.target = target;
+            this.prefix = prefix.getBytes();
         }
 
+        @Override
+        public void write(int b) {
+            line.write(b);
+            if (b == '\n') flushLine();
+        }
+
+        private void flushLine() {
+            synchronized (target) {
+                target.write(prefix, 0, prefix.length);
+                target.write(line.toByteArray(), 0, line.size());
+                target.flush();
+            }
+            line.reset();
+        }
+
+    }
+
+    /**
+     * Plays one game
+     *
+     * @return how it ended
+     */
+    Result play() {
+
+        // Just open some fields
+        board.open(0, 0);
+        board.open(0, board.getCountRow() - 1);
+        board.open(board.getCountColumn() - 1, 0);
+        board.open(board.getCountColumn() - 1, board.getCountRow() - 1);
+
+        // Solve the game
+        Result result = solver();
+
+        // move mouse back
+        board.end();
+
+        return result;
+
     }
 
     /**
      * Asks the user to enter a number via keyboard
+     * With more than one game the questions take turns, and there's only one reader so no answer gets lost.
      *
      * @param msg the message that should be shown
      * @return the number the user entered
      */
-    private int getUserInput(String msg) {
+    private static synchronized int getUserInput(String msg) {
         boolean ok = false;
         int input = -1;
 
@@ -87,8 +378,7 @@ public class MineSweeperSolver {
 
         while (!ok) {
             try {
-                BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
-                input = Integer.parseInt(br.readLine());
+                input = Integer.parseInt(INPUT.readLine());
                 ok = true;
             } catch (IOException | NumberFormatException e) {
                 System.err.println("Not a good number, try again!");
@@ -101,8 +391,10 @@ public class MineSweeperSolver {
     /**
      * Main Task
      * Solves a game
+     *
+     * @return how it ended
      */
-    private void solver() {
+    private Result solver() {
 
         try {
 
@@ -110,45 +402,52 @@ public class MineSweeperSolver {
             boolean triedTank = false;
 
             for (int times = 1; times <= 300; times++) {
+                board.setRound(times);
 
                 // Code for running at the end twice, just to be sure we really can't do anything more
                 if (board.refresh()) {
                     reruns = 0;
                     triedTank = false; // something changed -> everything okay
+                    pending.clear();
                 } else { // there was no change
 
-                    Thread.sleep(200);
+                    // While the game catches up, get the tank going on what won't change anyway
+                    long busy = System.nanoTime();
+                    if (!triedTank) tank.speculate(board.getCountMines(), pending, busy + Board.SETTLE_TIME * 1_000_000L);
+                    board.settle((System.nanoTime() - busy) / 1_000_000);
                     board.refresh();
 
                     if (reruns < 3) reruns++;
-                    else if (checkSolved()) throw board.new BoardException("\nWOW... I rate this game a solid 5 / 7");
+                    else if (checkSolved()) throw new Board.BoardException("\nWOW... I rate this game a solid 5 / 7");
                     else {
 
                         if (!triedTank) {
-                            tankSolver();
+                            // The well known patterns don't need any search, but flags alone don't show up on the
+                            // next refresh - so unless a pattern opened something, the tank goes on right away
+                            if (!patternSolver()) tankSolver();
                             triedTank = true;
-                        } else throw board.new BoardException("\nThe computer didn't do anything no more");
+                        } else throw new Board.BoardException("\nThe computer didn't do anything no more");
 
                     }
                 }
 
-                System.out.println("\nRound: " + times);
-
-                for (int x = 0; x < board.getCountColumn(); x++) {
-                    for (int y = 0; y < board.getCountRow(); y++) {
+                out.println("\nRound: " + times);
 
-                        // Only solve fields with "numbers"
-                        if (field[x][y].getVal() > 0) solveSingle(x, y);
-
-                    }
+                // Only solve fields with "numbers" which still have closed fields around
+                // Backwards, since solving one removes it and the last one takes its place
+                for (int i = field.getCountUnsolved() - 1; i >= 0; i--) {
+                    if (i < field.getCountUnsolved()) solveSingle(field.getUnsolvedX(i), field.getUnsolvedY(i));
                 }
 
             }
 
         } catch (Board.BoardException | InterruptedException e) {
-            System.err.println(e.getMessage());
+            err.println(e.getMessage());
         }
 
+        if (field.hasExploded()) return Result.LOST;
+        return checkSolved() ? Result.WON : Result.STUCK;
+
     }
 
     /**
@@ -159,130 +458,96 @@ public class MineSweeperSolver {
      * @param y you seriously should understand it
      */
     private void solveSingle(int x, int y) {
-        int countClosed = getSurroundingByType(x, y, State.BLOCK_CLOSED);
+        int countClosed = field.getClosedAround(x, y);
         if (countClosed == 0) return;
 
-        int countAlreadyFlagged = getSurroundingByType(x, y, State.BLOCK_FLAG);
-        int countMinesAround = field[x][y].getVal();
+        int countAlreadyFlagged = field.getFlagsAround(x, y);
+        int countMinesAround = field.get(x, y).getVal();
 
         // First: flag as much as we can
         if (countMinesAround == countClosed + countAlreadyFlagged) {
-            System.out.println("  Flag: " + field[x][y].getVal() + " at (" + (x + 1) + "/" + (y + 1) + ")");
+            out.println("  Flag: " + field.get(x, y).getVal() + " at (" + (x + 1) + "/" + (y + 1) + ")");
             board.flagSurrounding(x, y);
-            countAlreadyFlagged = getSurroundingByType(x, y, State.BLOCK_FLAG);
+            pending.add(new Point(x, y));
+            countAlreadyFlagged = field.getFlagsAround(x, y);
         }
 
         // Second: open the ones around
         if (countMinesAround == countAlreadyFlagged) {
-            System.out.println("  Open: " + field[x][y].getVal() + " at (" + (x + 1) + "/" + (y + 1) + ")");
+            out.println("  Open: " + field.get(x, y).getVal() + " at (" + (x + 1) + "/" + (y + 1) + ")");
             board.openSurrounding(x, y);
+            pending.add(new Point(x, y));
         }
 
     }
 
     /**
-     * Discovers all the fields around that match the parameter
-     *
-     * @param x why are you reading this?
-     * @param y you seriously should understand it
-     * @param type type to compare
-     * @return the amount of fields around that match type
-     */
-    private int getSurroundingByType(int x, int y, State type) {
-        int hits = 0;
-
-        if (y > 0) {
-            if (x > 0 && field[x - 1][y - 1] == type) hits++; // top ■□□
-            if (field[x][y - 1] == type) hits++;   // top □■□
-            if (x < board.getCountColumn() - 1 && field[x + 1][y - 1] == type) hits++; // top □□■
-        }
-
-        if (x > 0 && field[x - 1][y] == type) hits++; // middle ■□□
-        if (x < board.getCountColumn() - 1 && field[x + 1][y] == type) hits++; // middle □□■
-
-        if (y < board.getCountRow() - 1) {
-            if (x > 0 && field[x - 1][y + 1] == type) hits++; // bottom ■□□
-            if (field[x][y + 1] == type) hits++;   // bottom □■□
-            if (x < board.getCountColumn() - 1 && field[x + 1][y + 1] == type) hits++; // bottom □□■
-        }
-
-        return hits;
-
-    }
-
-    /**
-     * Discovers all boundary blocks around
-     * A boundary block is an unopened block with opened blocks next to it.
+     * Checks if we already won the game
      *
-     * @param x why are you reading this?
-     * @param y you seriously should understand it
-     * @return true if it is a boundary block
+     * @return true if we won
      */
-    private boolean isBoundary(int x, int y) {
-        if (field[x][y] != State.BLOCK_CLOSED) return false;
-
-        if (y > 0) {
-            if (x > 0 && field[x - 1][y - 1].getVal() >= 0) return true; // top ■□□
-            if (field[x][y - 1].getVal() >= 0) return true;   // top □■□
-            if (x < board.getCountColumn() - 1 && field[x + 1][y - 1].getVal() >= 0) return true; // top □□■
-        }
-
-        if (x > 0 && field[x - 1][y].getVal() >= 0) return true; // middle ■□□
-        if (x < board.getCountColumn() - 1 && field[x + 1][y].getVal() >= 0) return true; // middle □□■
-
-        if (y < board.getCountRow() - 1) {
-            if (x > 0 && field[x - 1][y + 1].getVal() >= 0) return true; // bottom ■□□
-            if (field[x][y + 1].getVal() >= 0) return true;   // bottom □■□
-            if (x < board.getCountColumn() - 1 && field[x + 1][y + 1].getVal() >= 0) return true; // bottom □□■
-        }
-
-        return false;
+    private boolean checkSolved() {
+        return field.getCountClosed() == 0;
     }
 
     /**
-     * Checks if we already won the game
+     * Looks up the windows around the numbers which are left (see Patterns)
+     * Only the windows where something changed since the last time are looked at, the others wouldn't prove anything new.
      *
-     * @return true if we won
+     * @return true if a pattern opened a block (mines are flagged, but that alone doesn't count)
      */
-    private boolean checkSolved() {
-        for (int x = 0; x < board.getCountColumn(); x++) {
-            for (int y = 0; y < board.getCountRow(); y++) {
-
-                if (field[x][y] == State.BLOCK_CLOSED) return false;
-
+    private boolean patternSolver() {
+        int changedSince = patternsChecked;
+        patternsChecked = field.getCountChanges();
+        int windowsStamp = ++windowsChecked;
+        HashSet<Point> proven = new HashSet<>();
+        boolean opened = false;
+
+        for (int i = 0; i < field.getCountUnsolved(); i++) {
+            int x = field.getUnsolvedX(i), y = field.getUnsolvedY(i);
+            if (!hasChanged(x, y, changedSince)) continue;
+
+            // Each window which has this number in the middle
+            for (int wx = x - 2; wx <= x - 1; wx++) {
+                for (int wy = y - 2; wy <= y - 1; wy++) {
+                    int window = (wx + 2) * (field.getCountRow() + 2) + wy + 2;
+                    if (windowSeen[window] == windowsStamp) continue;
+                    windowSeen[window] = windowsStamp;
+
+                    int proof = patterns.lookup(Patterns.window(field, wx, wy));
+                    if (proof == 0) continue;
+
+                    for (int b = 0; b < Patterns.SIDE * Patterns.SIDE; b++) {
+                        boolean isMine = (proof >>> 16 >> b & 1) == 1;
+                        if (!isMine && (proof >> b & 1) == 0) continue;
+
+                        Point block = new Point(wx + b / Patterns.SIDE, wy + b % Patterns.SIDE);
+                        if (field.get(block.x, block.y) != State.BLOCK_CLOSED || !proven.add(block)) continue;
+                        if (isMine) board.flag(block.x, block.y);
+                        else {
+                            board.open(block.x, block.y);
+                            opened = true;
+                        }
+                        pending.add(block);
+                    }
+                }
             }
         }
 
-        return true;
+        if (!proven.isEmpty()) out.printf("  Patterns found %d blocks\n", proven.size());
+        return opened;
     }
 
     /**
-     * How many flags exist around this block?
-     *
-     * @param array the array to check in
-     * @param x why are you reading this?
-     * @param y you seriously should understand it
-     * @return amount of flags around
+     * @return true if a block up to 2 away from this one changed since then (see Field.getCountChanges)
      */
-    private int countFlagsAround(boolean[][] array, int x, int y) {
-        int mines = 0;
-
-        if (y > 0) {
-            if (x > 0 && array[x - 1][y - 1]) mines++; // top ■□□
-            if (array[x][y - 1]) mines++;   // top □■□
-            if (x < array.length - 1 && array[x + 1][y - 1]) mines++; // top □□■
-        }
-
-        if (x > 0 && array[x - 1][y]) mines++; // middle ■□□
-        if (x < array.length - 1 && array[x + 1][y]) mines++; // middle □□■
-
-        if (y < array[0].length - 1) {
-            if (x > 0 && array[x - 1][y + 1]) mines++; // bottom ■□□
-            if (array[x][y + 1]) mines++;   // bottom □■□
-            if (x < array.length - 1 && array[x + 1][y + 1]) mines++; // bottom □□■
-        }
-
-        return mines;
+    private boolean hasChanged(int x, int y, int since) {
+        int fromX = Math.max(0, x - 2) / Field.TILE_SIDE, toX = Math.min(field.getCountColumn() - 1, x + 2) / Field.TILE_SIDE;
+        int fromY = Math.max(0, y - 2) / Field.TILE_SIDE, toY = Math.min(field.getCountRow() - 1, y + 2) / Field.TILE_SIDE;
+        for (int tx = fromX; tx <= toX; tx++)
+            for (int ty = fromY; ty <= toY; ty++)
+                if (field.getChangedInTile(tx, ty) > since) return true;
+        return false;
     }
 
     /**
@@ -297,267 +562,70 @@ public class MineSweeperSolver {
         // Timing
         long tankTime = System.currentTimeMillis();
 
-        ArrayList<Point> borderBlocks = new ArrayList<>();
-        ArrayList<Point> allEmptyBlocks = new ArrayList<>();
-
-        // Endgame case: if there are few enough tiles, don't bother with border tiles.
-        borderOptimization = false;
-        for (int x = 0; x < board.getCountColumn(); x++)
-            for (int y = 0; y < board.getCountRow(); y++)
-                if (field[x][y] == State.BLOCK_CLOSED && field[x][y] != State.BLOCK_FLAG) allEmptyBlocks.add(new Point(x, y));
-
-        // Determine all border tiles
-        for (int x = 0; x < board.getCountColumn(); x++)
-            for (int y = 0; y < board.getCountRow(); y++)
-                if (isBoundary(x, y) && field[x][y] != State.BLOCK_FLAG) borderBlocks.add(new Point(x, y));
-
-        // Count how many blocks outside the knowable range
-        int countBlocksOutOfRange = allEmptyBlocks.size() - borderBlocks.size();
-        if (countBlocksOutOfRange > 8) { // 8 = brute force limit
-            borderOptimization = true;
-        } else borderBlocks = allEmptyBlocks;
-
+        // Compute solutions -- here's the time consuming step
+        ArrayList<Tank.Region> regions = tank.solveFrontier(board.getCountMines());
 
         // Something went wrong
-        if (borderBlocks.size() == 0) return;
-
-
-        // Run the segregation routine before recursing one by one
-        // Don't bother if it's endgame as doing so might make it miss some cases
-        ArrayList<ArrayList<Point>> segregated;
-        if (!borderOptimization) {
-            segregated = new ArrayList<>();
-            segregated.add(borderBlocks);
-        } else segregated = tankSegregate(borderBlocks);
+        if (regions.size() == 0) return;
 
         boolean success = false;
-        double propBest = 0; // Store information about the best probability
-        int totalMultiCases = 1,
-                propBestBlock = -1,
-                probBestS = -1;
-        for (int currentBlockId = 0; currentBlockId < segregated.size(); currentBlockId++) {
-
-            // Copy everything into temporary constructs
-            tankSolutions = new ArrayList<>();
-            tankBoard = field.clone();
-
-            knownMine = new boolean[board.getCountColumn()][board.getCountRow()];
-            for (int x = 0; x < board.getCountColumn(); x++) {
-                for (int y = 0; y < board.getCountRow(); y++) {
-                    knownMine[x][y] = field[x][y] == State.BLOCK_FLAG;
-                }
-            }
-
-            knownEmpty = new boolean[board.getCountColumn()][board.getCountRow()];
-            for (int x = 0; x < board.getCountColumn(); x++) {
-                for (int y = 0; y < board.getCountRow(); y++) {
-                    knownEmpty[x][y] = tankBoard[x][y].getVal() >= 0;
-                }
-            }
-
-            // Compute solutions -- here's the time consuming step
-            tankRecurse(segregated.get(currentBlockId), 0);
+        double totalMultiCases = 1;
+        ArrayList<Point> guesses = new ArrayList<>();
+        ArrayList<Double> safeties = new ArrayList<>(); // how likely each guess is safe
+        for (Tank.Region region : regions) {
 
             // Something screwed up
-            if (tankSolutions.size() == 0) return;
+            if (region.solutions == 0) return;
 
 
             // Check for solved squares
-            for (int i = 0; i < segregated.get(currentBlockId).size(); i++) {
-                boolean allMine = true,
-                        allEmpty = true;
-                for (boolean[] sln : tankSolutions) {
-                    if (!sln[i]) allMine = false;
-                    if (sln[i]) allEmpty = false;
-                }
+            for (int i = 0; i < region.blocks.size(); i++) {
+                Point block = region.blocks.get(i);
 
-                Point block = segregated.get(currentBlockId).get(i);
-
-                if (allMine) board.flag(block.x, block.y);
-                else if (allEmpty) {
+                if (region.mineCounts[i] == region.solutions) {
+                    board.flag(block.x, block.y);
+                    pending.add(block);
+                } else if (region.mineCounts[i] == 0) {
                     success = true;
                     board.open(block.x, block.y);
+                    pending.add(block);
                 }
             }
 
-            totalMultiCases *= tankSolutions.size();
+            totalMultiCases *= region.solutions;
 
             // Calculate probabilities, in case we need it
             if (success) continue;
-            int maxEmpty = -10000;
-            int iEmpty = -1;
-            for (int i = 0; i < segregated.get(currentBlockId).size(); i++) {
-                int nEmpty = 0;
-                for (boolean[] sln : tankSolutions) {
-                    if (!sln[i]) nEmpty++;
-                }
-                if (nEmpty > maxEmpty) {
-                    maxEmpty = nEmpty;
-                    iEmpty = i;
-                }
-            }
-
-            double probability = (double) maxEmpty / (double) tankSolutions.size();
-
-            if (probability > propBest) {
-                propBest = probability;
-                propBestBlock = iEmpty;
-                probBestS = currentBlockId;
+            for (int i = 0; i < region.blocks.size(); i++) {
+                if (region.mineCounts[i] == region.solutions) continue; // that's a mine for sure
+                guesses.add(region.blocks.get(i));
+                safeties.add((region.solutions - region.mineCounts[i]) / region.solutions);
             }
 
         }
 
         tankTime = System.currentTimeMillis() - tankTime;
+        if (tank.getCountReused() > 0)
+            out.printf("  Tank took %d of %d regions from while we waited\n", tank.getCountReused(), regions.size());
         if (success) {
-            System.out.printf("  Tank successfully invoked (%dms, %d cases)\n", tankTime, totalMultiCases);
+            out.printf("  Tank successfully invoked (%dms, %.0f cases)\n", tankTime, totalMultiCases);
             return;
         }
 
-        // Take the guess, since we can't deduce anything useful
-        System.out.printf("  Tank guessing with probability %1.2f (%dms, %d cases)\n", propBest, tankTime, totalMultiCases);
-        Point q = segregated.get(probBestS).get(propBestBlock);
-        board.open(q.x, q.y);
-
-    }
-
-    /**
-     * Segregation routine: if two regions are independent then consider them as separate regions
-     *
-     * @param borderBlocks the blocks to check
-     * @return the separated regions
-     */
-    private ArrayList<ArrayList<Point>> tankSegregate(ArrayList<Point> borderBlocks) {
-
-        ArrayList<ArrayList<Point>> allRegions = new ArrayList<>();
-        ArrayList<Point> covered = new ArrayList<>();
-
-        while (true) {
-
-            LinkedList<Point> queue = new LinkedList<>();
-            ArrayList<Point> finishedRegion = new ArrayList<>();
-
-            // Find a suitable starting point
-            for (Point firstB : borderBlocks) {
-                if (!covered.contains(firstB)) {
-                    queue.add(firstB);
-                    break;
-                }
-            }
-
-            if (queue.isEmpty()) break;
-
-            while (!queue.isEmpty()) {
-
-                Point block = queue.poll();
-                finishedRegion.add(block);
-                covered.add(block);
-
-                // Find all connecting blocks
-                for (Point compareBlock : borderBlocks) {
-
-                    boolean isConnected = false;
-
-                    if (finishedRegion.contains(compareBlock)) continue;
-
-                    if (Math.abs(block.x - compareBlock.x) > 2 || Math.abs(block.y - compareBlock.y) > 2) isConnected = false;
-                    else {
-                        // Perform a search on all the blocks
-                        blockSearch: for (int x = 0; x < board.getCountColumn(); x++) {
-                            for (int y = 0; y < board.getCountRow(); y++) {
-                                if (field[x][y].getVal() > 0) {
-                                    if (Math.abs(block.x - x) <= 1 && Math.abs(block.y - y) <= 1 && Math.abs(compareBlock.x - x) <= 1 && Math.abs(compareBlock.y - y) <= 1) {
-                                        isConnected = true;
-                                        break blockSearch;
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    if (!isConnected) continue;
-                    if (!queue.contains(compareBlock)) queue.add(compareBlock);
-
-                }
-            }
-
-            allRegions.add(finishedRegion);
-
-        }
-
-        return allRegions;
-
-    }
-
-
-    private State[][] tankBoard = null;
-    private boolean[][] knownMine = null;
-    private boolean[][] knownEmpty = null;
-    private ArrayList<boolean[]> tankSolutions;
-
-    // Should be true -- if false, we're brute forcing the endgame
-    boolean borderOptimization;
-
-    /**
-     * Recurse from depth (0 is root)
-     * Assumes the tank variables are already set; puts solutions in the arraylist.
-     * @param borderTiles the region to analyze
-     * @param depth which depth lvl we're in
-     */
-    void tankRecurse(ArrayList<Point> borderTiles, int depth) {
-
-        // Return if at this point, it's already inconsistent
-        int flagCount = 0;
-        for (int x = 0; x < board.getCountColumn(); x++)
-            for (int y = 0; y < board.getCountRow(); y++) {
-
-                // Count flags for endgame cases
-                if (knownMine[x][y]) flagCount++;
-
-                int currentBlockValue = tankBoard[x][y].getVal();
-                if (currentBlockValue < 0) continue;
-
-                // Scenario 1: too many mines
-                if (countFlagsAround(knownMine, x, y) > currentBlockValue) return;
-
-                // Total bordering blocks
-                int countBorderingBlocks;
-                if ((x == 0 && y == 0) || (x == board.getCountColumn() - 1 && y == board.getCountRow() - 1)) countBorderingBlocks = 3;
-                else if (x == 0 || y == 0 || x == board.getCountColumn() - 1 || y == board.getCountRow() - 1) countBorderingBlocks = 5;
-                else countBorderingBlocks = 8;
-
-                // Scenario 2: too many empty
-                if (countBorderingBlocks - countFlagsAround(knownEmpty, x, y) < currentBlockValue) return;
-            }
-
-        // We have too many flags
-        if (flagCount > board.getCountMines()) return;
-
-
-        // Solution found!
-        if (depth == borderTiles.size()) {
-
-            // We don't have the exact mine count, so no
-            if (!borderOptimization && flagCount < board.getCountMines()) return;
-
-            boolean[] solution = new boolean[borderTiles.size()];
-            for (int i = 0; i < borderTiles.size(); i++) {
-                Point block = borderTiles.get(i);
-                solution[i] = knownMine[block.x][block.y];
-            }
-            tankSolutions.add(solution);
+        if (!guessing || guesses.isEmpty()) {
+            out.printf("  Tank would have to guess (%dms, %.0f cases)\n", tankTime, totalMultiCases);
             return;
         }
 
-        Point block = borderTiles.get(depth);
-
-        // Recurse two positions: mine and no mine
-        knownMine[block.x][block.y] = true;
-        tankRecurse(borderTiles, depth + 1);
-        knownMine[block.x][block.y] = false;
-
-        knownEmpty[block.x][block.y] = true;
-        tankRecurse(borderTiles, depth + 1);
-        knownEmpty[block.x][block.y] = false;
+        // Take the guess, since we can't deduce anything useful
+        long guessTime = System.currentTimeMillis();
+        // A quick tank means a small position, whose what-ifs are just as quick - no need to wait any longer
+        Point q = guesser.choose(guesses, safeties, Math.min(GUESS_MAX_TIME, Math.max(GUESS_MIN_TIME, tankTime)));
+        guessTime = System.currentTimeMillis() - guessTime;
+        out.printf("  Tank guessing with probability %1.2f (%dms, %.0f cases, %d guesses looked ahead in %dms)\n",
+                safeties.get(guesses.indexOf(q)), tankTime, totalMultiCases, guesser.getCountEvaluated(), guessTime);
+        board.open(q.x, q.y);
+        pending.add(q);
 
     }
 
@@ -569,28 +637,7 @@ public class MineSweeperSolver {
      * Prints out the board in console
      */
     private void printBoard() {
-
-        for (int x = 0; x < board.getCountRow(); x++) {
-            for (int y = 0; y < board.getCountColumn(); y++) {
-
-                switch (field[y][x]) {
-                    case BLOCK_EMPTY:System.out.print("□");break;
-                    case BLOCK_CLOSED:System.out.print("■");break;
-                    case BLOCK_ONE:System.out.print("1");break;
-                    case BLOCK_TWO:System.out.print("2");break;
-                    case BLOCK_THREE:System.out.print("3");break;
-                    case BLOCK_FOUR:System.out.print("4");break;
-                    case BLOCK_FIVE:System.out.print("5");break;
-                    case BLOCK_SIX:System.out.print("6");break;
-                    case BLOCK_SEVEN:System.out.print("7");break;
-                    case BLOCK_EIGHT:System.out.print("8");break;
-                    case BLOCK_FLAG:System.out.print("P");break;
-                    case BLOCK_MINE_EXPLODED:System.out.print("X");break;
-                }
-
-            }
-            System.out.println();
-        }
+        out.print(board);
     }
 
 
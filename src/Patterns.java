@@ -0,0 +1,318 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Well known patterns like 1-2-1, 1-2-2-1 or two 1 in a corner, looked up instead of searched
+ * <p>
+ * A pattern is a window of 4x4 blocks. Only the 4 blocks in the middle count as numbers, their neighbours
+ * all lie inside the window, so whatever the window proves holds on the whole board as well.
+ * A window is one int: the closed blocks (16 bits, x * 4 + y) and for each number in the middle
+ * the mines it still misses (4 bits each, NONE if it's no number). Closed blocks without a number
+ * in the middle next to them are left out, they can't be proven anyway.
+ * <p>
+ * The table is made once by main, which goes through every window and keeps the ones where two or more
+ * numbers together prove something no number can on its own (that's what solveSingle does).
+ * For each window it stores which blocks are safe (the low 16 bits) and which are mines (the high 16 bits).
+ * <p>
+ * File: MAGIC, the amount of windows and then the windows in order, each one as the difference to the one before
+ * (as few bytes as needed, 7 bits each) followed by what it proves (4 bytes).
+ * <p>
+ * The table is looked for where -Dpatterns=&lt;file&gt; says, otherwise in resources/ of the working directory
+ * and then in resources/ next to the directory (or jar) the classes are in.
+ * <p>
+ * Usage: java Patterns [file], resources/patterns.bin by default
+ */
+class Patterns {
+
+    static final int MAGIC = 0x4d535450; // MSTP
+    static final int SIDE = 4;
+    static final String FILE = "resources/patterns.bin";
+
+    private static final int NONE = 15;
+    private static final int[] MIDDLE = {SIDE + 1, SIDE + 2, 2 * SIDE + 1, 2 * SIDE + 2};
+    private static final int[] AROUND = new int[MIDDLE.length]; // the blocks around each of the middle ones
+
+    static {
+        for (int i = 0; i < MIDDLE.length; i++) {
+            int x = MIDDLE[i] / SIDE, y = MIDDLE[i] % SIDE;
+            for (int dx = -1; dx <= 1; dx++)
+                for (int dy = -1; dy <= 1; dy++)
+                    if (dx != 0 || dy != 0) AROUND[i] |= 1 << ((x + dx) * SIDE + y + dy);
+        }
+    }
+
+    private static Patterns shared;
+
+    // Open addressing, a key of 0 can't be a pattern (it has no closed blocks)
+    private final int[] keys, proofs;
+    private final int mask, shift;
+
+    private Patterns(int[] windows, int[] proven, int count) {
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2) * 2;
+        keys = new int[capacity];
+        proofs = new int[capacity];
+        mask = capacity - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        for (int i = 0; i < count; i++) {
+            int slot = slot(windows[i]);
+            keys[slot] = windows[i];
+            proofs[slot] = proven[i];
+        }
+    }
+
+    /**
+     * The table from resources, loaded the first time it's needed
+     * Without the file there just aren't any patterns.
+     *
+     * @return the table
+     */
+    static synchronized Patterns get() {
+        if (shared != null) return shared;
+        try {
+            shared = read(locate());
+        } catch (IOException e) {
+            System.err.println("No patterns: " + e.getMessage());
+            shared = new Patterns(new int[0], new int[0], 0);
+        }
+        return shared;
+    }
+
+    /**
+     * @return where the table is, see above
+     */
+    static File locate() {
+        if (System.getProperty("patterns") != null) return new File(System.getProperty("patterns"));
+
+        File file = new File(FILE);
+        if (file.exists()) return file;
+
+        try {
+            File classes = new File(Patterns.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            File next = new File(classes.getAbsoluteFile().getParentFile(), FILE);
+            if (next.exists()) return next;
+        } catch (URISyntaxException | SecurityException | NullPointerException e) {
+            // Then it's only the working directory
+        }
+        return file;
+    }
+
+    static Patterns read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is no pattern table");
+            int count = in.readInt();
+            int[] windows = new int[count], proven = new int[count];
+            int window = 0;
+            for (int i = 0; i < count; i++) {
+                int difference = 0;
+                for (int shift = 0; ; shift += 7) {
+                    int b = in.readUnsignedByte();
+                    difference |= (b & 0x7f) << shift;
+                    if (b < 0x80) break;
+                }
+                window += difference;
+                windows[i] = window;
+                proven[i] = in.readInt();
+            }
+            return new Patterns(windows, proven, count);
+        }
+    }
+
+    private int slot(int window) {
+        int slot = (window * 0x9e3779b9 >>> shift) & mask;
+        while (keys[slot] != 0 && keys[slot] != window) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * @return what the window proves: the safe blocks in the low 16 bits, the mines in the high ones (0 if nothing)
+     */
+    int lookup(int window) {
+        return window == 0 ? 0 : proofs[slot(window)];
+    }
+
+    /**
+     * @return how many windows the table knows
+     */
+    int size() {
+        int size = 0;
+        for (int key : keys) if (key != 0) size++;
+        return size;
+    }
+
+    /**
+     * The window with its top left block at x / y, blocks outside of the game are like opened ones without a number
+     *
+     * @return the window or 0 if there's nothing in it to look up
+     */
+    static int window(Field field, int x, int y) {
+        int closed = 0;
+        for (int dx = 0; dx < SIDE; dx++) {
+            for (int dy = 0; dy < SIDE; dy++) {
+                if (isInside(field, x + dx, y + dy) && field.get(x + dx, y + dy) == State.BLOCK_CLOSED)
+                    closed |= 1 << (dx * SIDE + dy);
+            }
+        }
+
+        int numbers = 0, around = 0, countNumbers = 0;
+        for (int i = 0; i < MIDDLE.length; i++) {
+            int bx = x + MIDDLE[i] / SIDE, by = y + MIDDLE[i] % SIDE;
+            int missing = NONE;
+            if (isInside(field, bx, by) && field.get(bx, by).getVal() > 0 && field.getClosedAround(bx, by) > 0) {
+                missing = field.get(bx, by).getVal() - field.getFlagsAround(bx, by);
+                if (missing < 0 || missing > field.getClosedAround(bx, by)) return 0; // can't be
+                around |= AROUND[i];
+                countNumbers++;
+            }
+            numbers |= missing << (4 * i);
+        }
+        if (countNumbers < 2) return 0;
+
+        return closed & around | numbers << 16;
+    }
+
+    private static boolean isInside(Field field, int x, int y) {
+        return x >= 0 && y >= 0 && x < field.getCountColumn() && y < field.getCountRow();
+    }
+
+    /**
+     * Places the mines in every way on the closed blocks and sorts them by what the numbers would be
+     * For each way the numbers can be, what's a mine in every placement is one and what's a mine in none is safe.
+     *
+     * @param numbers which blocks in the middle are numbers (a bit for each)
+     * @param closed  the closed blocks, all of them next to a number
+     * @return the windows which prove something a single number can't (window in the high bits, proof in the low ones)
+     */
+    private static List<Long> prove(int numbers, int closed) {
+        int[] around = new int[MIDDLE.length];
+        int countNumbers = 0;
+        for (int i = 0; i < MIDDLE.length; i++)
+            if ((numbers >> i & 1) == 1) around[countNumbers++] = AROUND[i] & closed;
+
+        // What the numbers would be, 9 values each
+        int countCases = 1;
+        for (int i = 0; i < countNumbers; i++) countCases *= 9;
+        int[] always = new int[countCases], never = new int[countCases];
+        boolean[] possible = new boolean[countCases];
+
+        for (int mines = closed; ; mines = (mines - 1) & closed) {
+            int c = 0;
+            for (int i = countNumbers - 1; i >= 0; i--) c = c * 9 + Integer.bitCount(mines & around[i]);
+            if (!possible[c]) {
+                possible[c] = true;
+                always[c] = closed;
+                never[c] = closed;
+            }
+            always[c] &= mines;
+            never[c] &= ~mines;
+            if (mines == 0) break;
+        }
+
+        List<Long> proven = new ArrayList<>();
+        for (int c = 0; c < countCases; c++) {
+            if (!possible[c] || (always[c] | never[c]) == 0) continue;
+
+            // Easy ones are left to solveSingle
+            boolean easy = false;
+            int window = closed, rest = c;
+            for (int i = 0, n = 0; i < MIDDLE.length; i++) {
+                int missing = NONE;
+                if ((numbers >> i & 1) == 1) {
+                    missing = rest % 9;
+                    rest /= 9;
+                    easy |= missing == 0 || missing == Integer.bitCount(around[n++]);
+                }
+                window |= missing << (16 + 4 * i);
+            }
+            if (easy) continue;
+
+            proven.add((window & 0xffffffffL) << 32 | (never[c] | always[c] << 16) & 0xffffffffL);
+        }
+        return proven;
+    }
+
+    public static void main(String[] args) throws IOException {
+        File file = new File(args.length > 0 ? args[0] : FILE);
+        long time = System.currentTimeMillis();
+
+        long[] found = new long[1 << 16]; // the window in the high bits, what it proves in the low ones
+        int count = 0;
+
+        // Which blocks in the middle are numbers, at least two of them
+        for (int numbers = 0; numbers < 1 << MIDDLE.length; numbers++) {
+            if (Integer.bitCount(numbers) < 2) continue;
+            int around = 0, middle = 0;
+            for (int i = 0; i < MIDDLE.length; i++) {
+                if ((numbers >> i & 1) == 0) continue;
+                around |= AROUND[i];
+                middle |= 1 << MIDDLE[i];
+            }
+            around &= ~middle;
+
+            for (int closed = around; closed != 0; closed = (closed - 1) & around) {
+                for (long proof : prove(numbers, closed)) {
+                    if (count == found.length) found = Arrays.copyOf(found, count * 2);
+                    found[count++] = proof;
+                }
+            }
+        }
+        // The windows have to be in order without a sign, so the differences are never negative.
+        // Flipping the highest bit before and after sorting does that.
+        for (int i = 0; i < count; i++) found[i] ^= Long.MIN_VALUE;
+        Arrays.sort(found, 0, count);
+        for (int i = 0; i < count; i++) found[i] ^= Long.MIN_VALUE;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(count);
+            int last = 0;
+            for (int i = 0; i < count; i++) {
+                int window = (int) (found[i] >>> 32);
+                int difference = window - last;
+                last = window;
+                while ((difference & ~0x7f) != 0) {
+                    out.writeByte(difference & 0x7f | 0x80);
+                    difference >>>= 7;
+                }
+                out.writeByte(difference);
+                out.writeInt((int) found[i]);
+            }
+        }
+
+        System.out.printf("%d windows prove something, written to %s (%d bytes) in %dms\n", count, file,
+                file.length(), System.currentTimeMillis() - time);
+    }
+
+}
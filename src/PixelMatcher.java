@@ -0,0 +1,90 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+/**
+ * Compares the pixels of a screenshot with the ones from the skin
+ * <p>
+ * The pixels are ARGB ints as returned by BufferedImage.getRGB, usually a whole row (or screenshot) at once.
+ * There is a plain implementation and one using the vector api, {@link #best()} picks the fastest that works.
+ */
+interface PixelMatcher {
+
+    /**
+     * Finds where a signature starts
+     *
+     * @param pixels    the pixels
+     * @param from      the first position to check
+     * @param to        the position after the last one to check, signature.length pixels have to fit after it
+     * @param signature the pixels to look for
+     * @return the position or -1 if it isn't there
+     */
+    int find(int[] pixels, int from, int to, int[] signature);
+
+    /**
+     * Checks if the signature is at a position
+     *
+     * @param pixels    the pixels
+     * @param offset    where to look
+     * @param signature the pixels to look for
+     * @param skip      how many pixels at the start of the signature to ignore
+     * @return true if all the others are equal
+     */
+    boolean matches(int[] pixels, int offset, int[] signature, int skip);
+
+    /**
+     * Reads the states of a row of blocks
+     *
+     * @param pixels the pixels of the row, the first pixel of each block is the one that counts
+     * @param offset where the first block starts
+     * @param count  how many blocks there are
+     * @param states gets the ordinals of the states, BLOCK_CLOSED for all unknown pixels
+     */
+    void classify(int[] pixels, int offset, int count, int[] states);
+
+    /**
+     * Uses the vector api if it is there (java --add-modules jdk.incubator.vector) and not disabled with -Dvector=false
+     *
+     * @return the matcher to use
+     */
+    static PixelMatcher best() {
+        PixelMatcher vector = vector();
+        return vector != null ? vector : new ScalarPixelMatcher();
+    }
+
+    /**
+     * @return the matcher using the vector api or null if it can't be used
+     */
+    static PixelMatcher vector() {
+        if (!Boolean.parseBoolean(System.getProperty("vector", "true"))) return null;
+
+        try {
+            PixelMatcher matcher = (PixelMatcher) Class.forName("VectorPixelMatcher").getDeclaredConstructor().newInstance();
+            // Make sure everything can be linked
+            matcher.matches(Board.BLOCK_CLOSED, 0, Board.BLOCK_CLOSED, 0);
+            return matcher;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+}
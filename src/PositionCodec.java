@@ -0,0 +1,197 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+/**
+ * Reads and writes positions, either as text or in a compact binary form
+ * <p>
+ * Text: one row per line using the symbols of State.
+ * A position can start with a line "mines &lt;count&gt;", positions are separated by an empty line.
+ * Instead of ■ and □ the plain '#' and '.' can be used as well.
+ * <pre>
+ * mines 10
+ * ■■1□□
+ * ■■1□□
+ * 11□□□
+ * </pre>
+ * Binary: a header of MAGIC, the columns and rows (2 bytes each) and the mines (4 bytes, -1 if unknown),
+ * followed by the blocks row by row with 4 bits each (the ordinal of the State, the first block in the high bits).
+ * <p>
+ * Both are read one position at a time, so there can be as many positions as you like in a stream.
+ */
+public class PositionCodec {
+
+    static final int MAGIC = 0x4d535031; // MSP1
+    static final int HEADER_SIZE = 12;
+
+    private static final State[] STATES = State.values();
+    private static final State[] SYMBOLS = new State[128];
+
+    static {
+        for (State state : State.values())
+            if (state.getSymbol() < SYMBOLS.length) SYMBOLS[state.getSymbol()] = state;
+        SYMBOLS['#'] = State.BLOCK_CLOSED;
+        SYMBOLS['.'] = State.BLOCK_EMPTY;
+    }
+
+    /**
+     * Reads the next position, only as many lines as needed
+     *
+     * @param in where to read from
+     * @return the position or null if there is none left
+     * @throws IOException if the text isn't a position
+     */
+    public static Position readText(BufferedReader in) throws IOException {
+        int countMines = -1;
+        ArrayList<String> rows = new ArrayList<>();
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty()) {
+                if (rows.isEmpty()) continue;
+                break;
+            }
+
+            if (line.startsWith("mines")) {
+                if (!rows.isEmpty()) throw new IOException("The mines have to come before the blocks");
+                try {
+                    countMines = Integer.parseInt(line.substring(5).strip());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Not a mine count: " + line);
+                }
+            } else rows.add(line);
+        }
+
+        if (rows.isEmpty()) {
+            if (countMines >= 0) throw new IOException("There are no blocks after the mine count");
+            return null;
+        }
+
+        Field field = new Field(rows.get(0).length(), rows.size());
+        for (int y = 0; y < rows.size(); y++) {
+            String row = rows.get(y);
+            if (row.length() != field.getCountColumn())
+                throw new IOException("Row " + (y + 1) + " has " + row.length() + " blocks instead of " + field.getCountColumn());
+
+            for (int x = 0; x < row.length(); x++) field.set(x, y, fromSymbol(row.charAt(x)));
+        }
+
+        return new Position(field, countMines);
+    }
+
+    /**
+     * Writes a position the way readText reads it, followed by an empty line
+     *
+     * @param position the position
+     * @param out      where to write to
+     * @throws IOException if writing fails
+     */
+    public static void writeText(Position position, Writer out) throws IOException {
+        Field field = position.getField();
+        if (position.getCountMines() >= 0) out.write("mines " + position.getCountMines() + "\n");
+
+        StringBuilder row = new StringBuilder(field.getCountColumn() + 1);
+        for (int y = 0; y < field.getCountRow(); y++) {
+            row.setLength(0);
+            for (int x = 0; x < field.getCountColumn(); x++) row.append(field.get(x, y).getSymbol());
+            out.write(row.append('\n').toString());
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Reads the next binary position
+     *
+     * @param in where to read from
+     * @return the position or null if the stream ended before it
+     * @throws IOException if the bytes aren't a position
+     */
+    public static Position readBinary(DataInputStream in) throws IOException {
+        int magic;
+        try {
+            magic = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (magic != MAGIC) throw new IOException("Not a position, it starts with " + Integer.toHexString(magic));
+
+        int countColumn = in.readUnsignedShort();
+        int countRow = in.readUnsignedShort();
+        int countMines = in.readInt();
+        if (countColumn == 0 || countRow == 0) throw new IOException("A position of " + countColumn + "x" + countRow);
+
+        byte[] blocks = new byte[(countColumn * countRow + 1) / 2];
+        in.readFully(blocks);
+
+        Field field = new Field(countColumn, countRow);
+        for (int i = 0; i < countColumn * countRow; i++) {
+            int ordinal = (blocks[i >> 1] >> ((i & 1) == 0 ? 4 : 0)) & 0xf;
+            if (ordinal >= STATES.length) throw new IOException("Unknown block " + ordinal);
+
+            // Closed is the default, that's most of them in a big game
+            if (STATES[ordinal] != State.BLOCK_CLOSED) field.set(i % countColumn, i / countColumn, STATES[ordinal]);
+        }
+
+        return new Position(field, countMines);
+    }
+
+    /**
+     * Writes a position the way readBinary reads it
+     *
+     * @param position the position
+     * @param out      where to write to
+     * @throws IOException if writing fails
+     */
+    public static void writeBinary(Position position, DataOutputStream out) throws IOException {
+        Field field = position.getField();
+        int countColumn = field.getCountColumn(), countRow = field.getCountRow();
+        if (countColumn > 0xffff || countRow > 0xffff) throw new IOException("The position is too big");
+
+        out.writeInt(MAGIC);
+        out.writeShort(countColumn);
+        out.writeShort(countRow);
+        out.writeInt(position.getCountMines());
+
+        byte[] blocks = new byte[(countColumn * countRow + 1) / 2];
+        for (int i = 0; i < countColumn * countRow; i++)
+            blocks[i >> 1] |= field.get(i % countColumn, i / countColumn).ordinal() << ((i & 1) == 0 ? 4 : 0);
+        out.write(blocks);
+    }
+
+    private static State fromSymbol(char symbol) throws IOException {
+        State state = symbol < SYMBOLS.length ? SYMBOLS[symbol] : null;
+        if (state == null && symbol == State.BLOCK_CLOSED.getSymbol()) state = State.BLOCK_CLOSED;
+        if (state == null && symbol == State.BLOCK_EMPTY.getSymbol()) state = State.BLOCK_EMPTY;
+        if (state == null) throw new IOException("Unknown block '" + symbol + "'");
+        return state;
+    }
+
+}
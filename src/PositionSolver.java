@@ -0,0 +1,118 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solves positions from stdin or files and writes what it found to stdout, one line of JSON per position
+ * <p>
+ * The positions can be text or binary (see PositionCodec), which one is found out from the first bytes.
+ * They are read and solved one after the other, so a stream can be as long as you like.
+ * <p>
+ * Usage: java PositionSolver [files...]
+ * java PositionSolver --encode [files...] to turn text positions into binary ones
+ */
+public class PositionSolver {
+
+    public static void main(String[] args) {
+        boolean encode = false;
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--encode")) encode = true;
+            else files.add(arg);
+        }
+
+        long time = System.nanoTime();
+        long[] count = new long[1];
+        try {
+            Writer text = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            DataOutputStream binary = new DataOutputStream(new BufferedOutputStream(System.out, 1 << 16));
+            boolean encoding = encode;
+            PositionHandler handler = position -> {
+                count[0]++;
+                if (encoding) PositionCodec.writeBinary(position, binary);
+                else {
+                    text.write(new Analyzer(position).analyze().toJson());
+                    text.write('\n');
+                }
+            };
+
+            if (files.isEmpty()) read(System.in, handler);
+            for (String file : files) {
+                try (InputStream in = new FileInputStream(file)) {
+                    read(in, handler);
+                }
+            }
+
+            text.flush();
+            binary.flush();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+
+        time = System.nanoTime() - time;
+        System.err.printf("%d positions in %.1fs (%.0f per second)\n", count[0], time / 1e9, count[0] / (time / 1e9));
+    }
+
+    private interface PositionHandler {
+        void handle(Position position) throws IOException;
+    }
+
+    /**
+     * Reads all the positions of a stream, text or binary
+     */
+    private static void read(InputStream stream, PositionHandler handler) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(stream, 1 << 16);
+
+        // Binary positions start with the magic number
+        in.mark(4);
+        byte[] start = in.readNBytes(4);
+        in.reset();
+        boolean isBinary = start.length == 4
+                && ((start[0] & 0xff) << 24 | (start[1] & 0xff) << 16 | (start[2] & 0xff) << 8 | start[3] & 0xff) == PositionCodec.MAGIC;
+
+        Position position;
+        if (isBinary) {
+            DataInputStream data = new DataInputStream(in);
+            while ((position = PositionCodec.readBinary(data)) != null) handler.handle(position);
+        } else {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            while ((position = PositionCodec.readText(reader)) != null) handler.handle(position);
+        }
+    }
+
+}
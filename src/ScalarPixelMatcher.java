@@ -0,0 +1,50 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+/**
+ * Compares the pixels one by one
+ */
+class ScalarPixelMatcher implements PixelMatcher {
+
+    @Override
+    public int find(int[] pixels, int from, int to, int[] signature) {
+        for (int i = from; i < to; i++) {
+            if (pixels[i] == signature[0] && matches(pixels, i, signature, 1)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean matches(int[] pixels, int offset, int[] signature, int skip) {
+        for (int i = skip; i < signature.length; i++) {
+            if (pixels[offset + i] != signature[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void classify(int[] pixels, int offset, int count, int[] states) {
+        for (int i = 0; i < count; i++) states[i] = Board.read(pixels[offset + i * Board.BLOCK_SIDE]).ordinal();
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * The screen, shared by all the games on it
+ * <p>
+ * All mouse and keyboard input goes through here one after the other, so games played at the same time
+ * don't move the mouse away under each other.
+ * <p>
+ * If the games are known (see share), one screenshot of all of them is taken per tick and every game gets
+ * its part of it. A game only gets a new screenshot once it has seen the last one, or if it clicked since.
+ */
+public class Screen {
+
+    /**
+     * What one game has seen of the screen
+     */
+    static class View {
+
+        private int frame = -1; // the last shared screenshot it got
+        private long input; // its last click
+
+    }
+
+    private final Robot robot;
+    private final Rectangle bounds;
+
+    // The part of the screen with all the games on it, null if screenshots aren't shared
+    private Rectangle area;
+    private BufferedImage frame;
+    private int frameId;
+    private long frameInput;
+
+    // Counts the clicks
+    private long input;
+
+    public Screen() throws AWTException {
+        robot = new Robot();
+
+        // Union together the bounds of each screen for screenshot
+        Rectangle bounds = new Rectangle(0, 0, 0, 0);
+        for (GraphicsDevice gd : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+            bounds = bounds.union(gd.getDefaultConfiguration().getBounds());
+        }
+        this.bounds = bounds;
+    }
+
+    /**
+     * @return the bounds of all screens together
+     */
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    /**
+     * From now on one screenshot of this area is shared by all the games in it
+     *
+     * @param area the part of the screen with all the games
+     */
+    synchronized void share(Rectangle area) {
+        this.area = area;
+        frame = null;
+    }
+
+    /**
+     * Takes a screenshot, or cuts it out of the shared one if that is still new enough for this game
+     *
+     * @param view what the game has seen so far
+     * @param rect the area to capture in screen coordinates
+     * @return the screenshot
+     */
+    synchronized BufferedImage capture(View view, Rectangle rect) {
+        if (area == null || !area.contains(rect)) return robot.createScreenCapture(rect);
+
+        if (frame == null || frameId <= view.frame || frameInput < view.input) {
+            frame = robot.createScreenCapture(area);
+            frameId++;
+            frameInput = input;
+        }
+
+        view.frame = frameId;
+        return frame.getSubimage(rect.x - area.x, rect.y - area.y, rect.width, rect.height);
+    }
+
+    /**
+     * Clicks somewhere
+     *
+     * @param view   the game clicking
+     * @param x      in screen coordinates
+     * @param y      in screen coordinates
+     * @param button the mouse button mask from InputEvent
+     */
+    synchronized void click(View view, int x, int y, int button) {
+        robot.mouseMove(x, y);
+        robot.mousePress(button);
+        robot.mouseRelease(button);
+        view.input = ++input;
+    }
+
+    /**
+     * Presses a key, it goes to the window which got the last click
+     *
+     * @param keyCode the key from KeyEvent
+     */
+    synchronized void type(int keyCode) {
+        robot.keyPress(keyCode);
+        robot.keyRelease(keyCode);
+    }
+
+    synchronized void move(int x, int y) {
+        robot.mouseMove(x, y);
+    }
+
+}
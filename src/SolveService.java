@@ -0,0 +1,185 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Solves positions for other programs on this machine, without a board or a screen
+ * <p>
+ * POST a batch of positions (see PositionCodec) to http://localhost:&lt;port&gt;/solve and get back
+ * the safe blocks, the mines and the probabilities of the other blocks as JSON, one entry per position.
+ * Coordinates start at 0, x is the column and y the row.
+ * <p>
+ * The positions are solved by a fixed amount of workers. If more positions are waiting than the queue holds,
+ * the whole batch is turned down with 503 so the caller can try again later, instead of piling up.
+ * The requests themselves are read by as many threads as there are workers, and a batch is turned down with 413
+ * as soon as it has more positions than the queue holds, without reading the rest of it.
+ * <p>
+ * Usage: java SolveService [--port 8642] [--workers &lt;cpus&gt;] [--queue 1024]
+ */
+public class SolveService {
+
+    private final ExecutorService workers;
+    private final Semaphore queue;
+    private final int queueSize;
+
+    private SolveService(int countWorkers, int queueSize) {
+        this.queueSize = queueSize;
+        workers = Executors.newFixedThreadPool(countWorkers);
+        queue = new Semaphore(queueSize);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8642, countWorkers = Runtime.getRuntime().availableProcessors(), queueSize = 1024;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--workers":
+                    countWorkers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--queue":
+                    queueSize = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Don't know the option " + args[i]);
+                    return;
+            }
+        }
+
+        SolveService service = new SolveService(countWorkers, queueSize);
+
+        // Only reachable from this machine
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", service::handle);
+        server.setExecutor(Executors.newFixedThreadPool(countWorkers));
+        server.start();
+
+        System.out.printf("Solving positions on http://%s:%d/solve with %d workers\n",
+                InetAddress.getLoopbackAddress().getHostAddress(), port, countWorkers);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long time = System.nanoTime();
+
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, "{\"error\":\"Use POST\"}");
+                return;
+            }
+
+            // Read the whole batch first, a broken one shouldn't take up any workers
+            List<Position> positions = new ArrayList<>();
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+                Position position;
+                while ((position = PositionCodec.readText(in)) != null) {
+                    if (positions.size() == queueSize) {
+                        send(exchange, 413, "{\"error\":\"A batch can have at most " + queueSize + " positions\"}");
+                        return;
+                    }
+                    positions.add(position);
+                }
+            } catch (IOException e) {
+                send(exchange, 400, "{\"error\":" + quote(e.getMessage() != null ? e.getMessage() : "Not a position") + "}");
+                return;
+            }
+
+            if (!queue.tryAcquire(positions.size())) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, "{\"error\":\"Too many positions waiting\"}");
+                System.out.printf("Turned down %d positions\n", positions.size());
+                return;
+            }
+
+            List<Future<String>> results = new ArrayList<>(positions.size());
+            try {
+                for (Position position : positions) results.add(workers.submit(() -> new Analyzer(position).analyze().toJson()));
+
+                StringBuilder json = new StringBuilder("{\"positions\":[");
+                for (int i = 0; i < results.size(); i++) {
+                    if (i > 0) json.append(',');
+                    json.append(results.get(i).get());
+                }
+                time = System.nanoTime() - time;
+                json.append("],\"micros\":").append(time / 1000).append('}');
+
+                send(exchange, 200, json.toString());
+                System.out.printf("Solved %d positions in %.1fms\n", positions.size(), time / 1e6);
+            } catch (InterruptedException | ExecutionException e) {
+                send(exchange, 500, "{\"error\":" + quote(e.toString()) + "}");
+            } finally {
+                // The ones which didn't run yet still hold their place until they're done
+                for (Future<String> result : results) {
+                    try {
+                        result.get();
+                    } catch (InterruptedException | ExecutionException ignored) {
+                    }
+                }
+                queue.release(positions.size());
+            }
+        }
+    }
+
+    /**
+     * @return the text as a JSON string, with the quotes around it
+     */
+    static String quote(String text) {
+        StringBuilder json = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') json.append('\\').append(c);
+            else if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+            else json.append(c);
+        }
+        return json.append('"').toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+}
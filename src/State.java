@@ -29,27 +29,38 @@ SOFTWARE.
  */
 public enum State {
 
-    BLOCK_MINE_EXPLODED(-3),
-    BLOCK_CLOSED(-2),
-    BLOCK_FLAG(-1),
-    BLOCK_EMPTY(0),
-    BLOCK_ONE(1),
-    BLOCK_TWO(2),
-    BLOCK_THREE(3),
-    BLOCK_FOUR(4),
-    BLOCK_FIVE(5),
-    BLOCK_SIX(6),
-    BLOCK_SEVEN(7),
-    BLOCK_EIGHT(8);
+    BLOCK_MINE_EXPLODED(-3, 'X'),
+    BLOCK_CLOSED(-2, '■'),
+    BLOCK_FLAG(-1, 'P'),
+    BLOCK_EMPTY(0, '□'),
+    BLOCK_ONE(1, '1'),
+    BLOCK_TWO(2, '2'),
+    BLOCK_THREE(3, '3'),
+    BLOCK_FOUR(4, '4'),
+    BLOCK_FIVE(5, '5'),
+    BLOCK_SIX(6, '6'),
+    BLOCK_SEVEN(7, '7'),
+    BLOCK_EIGHT(8, '8');
 
     private int val;
+    private char symbol;
 
-    State(int val) {
+    State(int val, char symbol) {
         this.val = val;
+        this.symbol = symbol;
     }
 
     public int getVal() {
         return val;
     }
 
+    /**
+     * The character used when printing a board
+     *
+     * @return the symbol
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+
 }
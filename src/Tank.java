@@ -0,0 +1,880 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Tank solver
+ * By LuckyToilet: https://luckytoilet.wordpress.com/2012/12/23/2125/
+ * <p>
+ * TANK solver: slow and heavyweight backtrack solver designed to
+ * solve any conceivable position!
+ * <p>
+ * Instead of the whole board, every region only looks at the numbers around it (the constraints).
+ * The solutions aren't stored, we only count how often each block is a mine.
+ * <p>
+ * Whenever a block got a value, the rest of the region might fall apart into pieces which don't share a number.
+ * Those are counted one by one and their counts multiplied, like model counters do,
+ * instead of going through every combination of them. As the pieces have to share the mines that are left,
+ * everything is counted per amount of mines (unless there are more mines than blocks).
+ * The counts are doubles, so they don't overflow on big regions. Up to 2^53 solutions they're exact.
+ * <p>
+ * Big regions also remember the counts of every piece they came across, keyed by its blocks and the mines
+ * still missing around it. The same piece shows up again in other branches and is looked up instead of counted,
+ * and a piece without any solution cuts off every branch that leads to it again.
+ */
+class Tank {
+
+    /**
+     * A part of the frontier which doesn't depend on the rest, and what the tank found out about it
+     */
+    static class Region {
+
+        final ArrayList<Point> blocks;
+        final double solutions;
+        final double[] mineCounts; // how many of the solutions have a mine on each block
+
+        Region(ArrayList<Point> blocks, double solutions, double[] mineCounts) {
+            this.blocks = blocks;
+            this.solutions = solutions;
+            this.mineCounts = mineCounts;
+        }
+
+    }
+
+    /**
+     * A region solved ahead of time and what the blocks around it looked like back then
+     */
+    private static class Speculation {
+
+        final Region region;
+        final int flagsAvailable;
+        final int[] around; // every block up to 2 blocks away from the region (x * countRow + y)
+        final byte[] states; // and their state at that time
+
+        Speculation(Region region, int flagsAvailable, int[] around, byte[] states) {
+            this.region = region;
+            this.flagsAvailable = flagsAvailable;
+            this.around = around;
+            this.states = states;
+        }
+
+    }
+
+    // 8 = brute force limit, if there are less closed blocks outside of the frontier we look at all of them
+    static final int BRUTE_FORCE_LIMIT = 8;
+
+    private final Field field;
+
+    // One entry per block, a block is marked if it holds the current stamp
+    private final int[] marks;
+    private final int[] indices;
+    private int stamp;
+
+    // The region we're currently working on
+    private int countBlocks;
+    private int[] blockConstraints; // up to 8 constraints per block, -1 if there are less
+    private int[] order; // the blocks of the region, parts of it get sorted into pieces while we go
+    private int[] where; // the other way round, where a block is in the part we're merging
+    private int[] seen; // a block is seen if it holds the current stamp, see split
+    private int seenStamp;
+    private int[] queue;
+
+    // What we assigned to the blocks, in the order we did it
+    private static final byte OPEN = 0, MINE = 1, EMPTY = 2;
+    private static final int SMALL_PIECE = 8;
+
+    // Regions from this size on remember the counts of their pieces, only while the region is solved.
+    // When the counts of all pieces together get past CACHE_SIZE doubles, the cache starts over.
+    static final int CACHE_FROM = 24;
+    private static final int CACHE_SIZE = 1 << 22;
+    private HashMap<Piece, double[]> cache;
+    private int cacheSize;
+
+    // When solve has to stop (System.nanoTime()), only speculate and the guesses look ahead have one
+    private long deadline = Long.MAX_VALUE;
+    private boolean expired;
+    private int[] constraintSeen;
+    private int constraintStamp;
+    private byte[] state;
+    private int[] trail;
+    private int countTrail;
+
+    // The constraints (the opened blocks) around the region
+    private int countConstraints;
+    private int[] value, flagsAround, closedAround, minesAssigned, emptyAssigned;
+    private int[] constraintBlocks; // up to 8 blocks per constraint, -1 if there are less
+
+    private int flagsAvailable;
+    private boolean exactMines;
+
+    // Counts are kept for 0 up to width - 1 mines, a mine moves a count by unit
+    // If the mines don't matter that's all in one count (width 1, unit 0)
+    private int width;
+    private int unit;
+
+    // Regions solved while we waited for the game by their blocks (x * countRow + y), see speculate
+    private HashMap<Integer, Speculation> speculations = new HashMap<>();
+    private int countReused;
+
+    Tank(Field field) {
+        this.field = field;
+        marks = new int[field.getCountColumn() * field.getCountRow()];
+        indices = new int[marks.length];
+    }
+
+    /**
+     * Runs the tank on all the blocks next to numbers
+     * In the endgame all closed blocks are one region and all the mines have to be in there.
+     *
+     * @param countMines the amount of mines in the game, -1 if we don't know
+     * @return the regions in the order they were solved, stops after one without any solution
+     */
+    ArrayList<Region> solveFrontier(int countMines) {
+        return solveFrontier(countMines, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like solveFrontier, but gives up at the deadline
+     * If it had to give up (see hasExpired), the regions are only the ones which were done by then.
+     *
+     * @param countMines the amount of mines in the game, -1 if we don't know
+     * @param deadline   System.nanoTime() when we stop
+     * @return the regions in the order they were solved
+     */
+    ArrayList<Region> solveFrontier(int countMines, long deadline) {
+        this.deadline = deadline;
+        try {
+            return solveAll(countMines);
+        } finally {
+            this.deadline = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return true if the last solveFrontier (or speculate) ran out of time
+     */
+    boolean hasExpired() {
+        return expired;
+    }
+
+    private ArrayList<Region> solveAll(int countMines) {
+        expired = false;
+
+        ArrayList<Point> borderBlocks = new ArrayList<>();
+
+        // Determine all border tiles
+        for (int i = 0; i < field.getCountFrontier(); i++)
+            borderBlocks.add(new Point(field.getFrontierX(i), field.getFrontierY(i)));
+
+        // Endgame case: if there are few enough tiles, don't bother with border tiles.
+        // Count how many blocks outside the knowable range
+        int countBlocksOutOfRange = field.getCountClosed() - borderBlocks.size();
+        boolean borderOptimization = countMines < 0 || countBlocksOutOfRange > BRUTE_FORCE_LIMIT;
+        if (!borderOptimization) {
+            borderBlocks = new ArrayList<>();
+            for (int tx = 0; tx < field.getCountTileColumn(); tx++)
+                for (int ty = 0; ty < field.getCountTileRow(); ty++) {
+                    if (field.getClosedInTile(tx, ty) == 0) continue;
+
+                    for (int x = tx * Field.TILE_SIDE; x < Math.min(field.getCountColumn(), (tx + 1) * Field.TILE_SIDE); x++)
+                        for (int y = ty * Field.TILE_SIDE; y < Math.min(field.getCountRow(), (ty + 1) * Field.TILE_SIDE); y++)
+                            if (field.get(x, y) == State.BLOCK_CLOSED) borderBlocks.add(new Point(x, y));
+                }
+        }
+
+        ArrayList<Region> regions = new ArrayList<>();
+
+        // Something went wrong
+        if (borderBlocks.size() == 0) return regions;
+
+        // Run the segregation routine before recursing one by one
+        // Don't bother if it's endgame as doing so might make it miss some cases
+        ArrayList<ArrayList<Point>> segregated;
+        if (!borderOptimization) {
+            segregated = new ArrayList<>();
+            segregated.add(borderBlocks);
+        } else segregated = segregate(borderBlocks);
+
+        countReused = 0;
+        for (ArrayList<Point> blocks : segregated) {
+            Region region = borderOptimization ? reuse(blocks, countMines) : null;
+            if (region == null) {
+                double[] mineCounts = new double[blocks.size()];
+                double solutions = solve(blocks, countMines, !borderOptimization, mineCounts);
+                if (expired) break;
+                region = new Region(blocks, solutions, mineCounts);
+            } else countReused++;
+            regions.add(region);
+
+            // Something screwed up
+            if (region.solutions == 0) break;
+        }
+
+        speculations = new HashMap<>();
+        return regions;
+    }
+
+    /**
+     * Solves the regions of the frontier ahead of time, while we're waiting for the game anyway
+     * If nothing around a region changed until solveFrontier runs, its solution is used from here.
+     * <p>
+     * Regions close to blocks we just clicked on would change anyway, so they're skipped.
+     * So is the endgame, there all the closed blocks are one region.
+     *
+     * @param countMines the amount of mines in the game, -1 if we don't know
+     * @param pending    the blocks we clicked on (or around) since the game last changed
+     * @param deadline   System.nanoTime() after which we stop, a region which isn't done by then is dropped
+     */
+    void speculate(int countMines, List<Point> pending, long deadline) {
+        ArrayList<Point> borderBlocks = new ArrayList<>();
+        for (int i = 0; i < field.getCountFrontier(); i++)
+            borderBlocks.add(new Point(field.getFrontierX(i), field.getFrontierY(i)));
+
+        if (borderBlocks.size() == 0) return;
+        if (countMines >= 0 && field.getCountClosed() - borderBlocks.size() <= BRUTE_FORCE_LIMIT) return;
+
+        HashMap<Integer, Speculation> kept = new HashMap<>();
+        this.deadline = deadline;
+        expired = false;
+        try {
+            for (ArrayList<Point> blocks : segregate(borderBlocks)) {
+                if (System.nanoTime() > deadline) break;
+
+                // Still good from the last wait
+                Region region = reuse(blocks, countMines);
+                if (region == null) {
+                    if (isNear(blocks, pending)) continue;
+
+                    double[] mineCounts = new double[blocks.size()];
+                    double solutions = solve(blocks, countMines, false, mineCounts);
+                    if (expired) break; // only half counted
+                    region = new Region(blocks, solutions, mineCounts);
+                }
+
+                Speculation speculation = snapshot(region, countMines);
+                for (Point block : blocks) kept.put(block.x * field.getCountRow() + block.y, speculation);
+            }
+        } finally {
+            this.deadline = Long.MAX_VALUE;
+        }
+
+        speculations = kept;
+    }
+
+    /**
+     * @return how many regions the last solveFrontier could take from speculate
+     */
+    int getCountReused() {
+        return countReused;
+    }
+
+    /**
+     * Looks for a speculated region with the same blocks where nothing around has changed since
+     *
+     * @return the region with the counts in the order of the given blocks, null if there is none
+     */
+    private Region reuse(ArrayList<Point> blocks, int countMines) {
+        int countRow = field.getCountRow();
+        int flagsAvailable = countMines < 0 ? Integer.MAX_VALUE : countMines - field.getCountFlags();
+
+        Speculation speculation = speculations.get(blocks.get(0).x * countRow + blocks.get(0).y);
+        if (speculation == null || speculation.flagsAvailable != flagsAvailable) return null;
+        Region region = speculation.region;
+        if (region.blocks.size() != blocks.size()) return null;
+
+        for (int i = 0; i < speculation.around.length; i++) {
+            int block = speculation.around[i];
+            if (field.get(block / countRow, block % countRow).ordinal() != speculation.states[i]) return null;
+        }
+
+        // Nothing changed, so it's the same region, the blocks might just be in a different order
+        int order = nextStamp();
+        for (int i = 0; i < region.blocks.size(); i++) {
+            Point block = region.blocks.get(i);
+            marks[block.x * countRow + block.y] = order;
+            indices[block.x * countRow + block.y] = i;
+        }
+
+        double[] mineCounts = new double[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            int block = blocks.get(i).x * countRow + blocks.get(i).y;
+            if (marks[block] != order) return null;
+            mineCounts[i] = region.mineCounts[indices[block]];
+        }
+        return new Region(blocks, region.solutions, mineCounts);
+    }
+
+    /**
+     * Remembers how everything up to 2 blocks around a region looks like,
+     * that's all the blocks which have an influence on its numbers
+     */
+    private Speculation snapshot(Region region, int countMines) {
+        int countRow = field.getCountRow();
+        int seen = nextStamp();
+        int[] around = new int[region.blocks.size() * 25];
+        int countAround = 0;
+
+        for (Point block : region.blocks) {
+            for (int x = Math.max(0, block.x - 2); x <= Math.min(field.getCountColumn() - 1, block.x + 2); x++) {
+                for (int y = Math.max(0, block.y - 2); y <= Math.min(countRow - 1, block.y + 2); y++) {
+                    if (marks[x * countRow + y] == seen) continue;
+                    marks[x * countRow + y] = seen;
+                    around[countAround++] = x * countRow + y;
+                }
+            }
+        }
+
+        around = Arrays.copyOf(around, countAround);
+        byte[] states = new byte[countAround];
+        for (int i = 0; i < countAround; i++) states[i] = (byte) field.get(around[i] / countRow, around[i] % countRow).ordinal();
+
+        return new Speculation(region, countMines < 0 ? Integer.MAX_VALUE : countMines - field.getCountFlags(), around, states);
+    }
+
+    /**
+     * @return true if a click on a pending block could change something in the region
+     */
+    private static boolean isNear(ArrayList<Point> blocks, List<Point> pending) {
+        for (Point click : pending)
+            for (Point block : blocks)
+                if (Math.abs(click.x - block.x) <= 3 && Math.abs(click.y - block.y) <= 3) return true;
+        return false;
+    }
+
+    /**
+     * Segregation routine: if two regions are independent then consider them as separate regions
+     * Two blocks are connected if they share a number
+     *
+     * @param borderBlocks the blocks to check
+     * @return the separated regions
+     */
+    ArrayList<ArrayList<Point>> segregate(ArrayList<Point> borderBlocks) {
+        int countRow = field.getCountRow();
+
+        // Mark the border blocks, so we can find them in the neighbourhood of numbers
+        int border = nextStamp();
+        for (Point block : borderBlocks) marks[block.x * countRow + block.y] = border;
+        int covered = nextStamp();
+
+        ArrayList<ArrayList<Point>> allRegions = new ArrayList<>();
+        int[] queue = new int[borderBlocks.size()];
+
+        for (Point first : borderBlocks) {
+            int start = first.x * countRow + first.y;
+            if (marks[start] == covered) continue;
+
+            ArrayList<Point> finishedRegion = new ArrayList<>();
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            marks[start] = covered;
+
+            while (head < tail) {
+                int block = queue[head++];
+                int bx = block / countRow, by = block % countRow;
+                finishedRegion.add(new Point(bx, by));
+
+                // All border blocks around the numbers around this block are connected
+                for (int nx = Math.max(0, bx - 1); nx <= Math.min(field.getCountColumn() - 1, bx + 1); nx++) {
+                    for (int ny = Math.max(0, by - 1); ny <= Math.min(countRow - 1, by + 1); ny++) {
+                        if (field.get(nx, ny).getVal() <= 0) continue;
+
+                        for (int cx = Math.max(0, nx - 1); cx <= Math.min(field.getCountColumn() - 1, nx + 1); cx++) {
+                            for (int cy = Math.max(0, ny - 1); cy <= Math.min(countRow - 1, ny + 1); cy++) {
+                                int compare = cx * countRow + cy;
+                                if (marks[compare] != border) continue;
+                                marks[compare] = covered;
+                                queue[tail++] = compare;
+                            }
+                        }
+                    }
+                }
+            }
+
+            allRegions.add(finishedRegion);
+        }
+
+        return allRegions;
+    }
+
+    /**
+     * Counts all the possible mine placements of a region
+     *
+     * @param region     the blocks to place mines on
+     * @param countMines the amount of mines in the game, -1 if we don't know
+     * @param exactMines true if all the mines have to be in the region (endgame)
+     * @param mineCounts gets filled with how many solutions have a mine on each block of the region
+     * @return the amount of solutions
+     */
+    double solve(ArrayList<Point> region, int countMines, boolean exactMines, double[] mineCounts) {
+        prepare(region);
+        expired = false;
+
+        this.flagsAvailable = countMines < 0 ? Integer.MAX_VALUE : countMines - field.getCountFlags();
+        this.exactMines = exactMines;
+        Arrays.fill(mineCounts, 0, countBlocks, 0);
+        if (flagsAvailable < 0) return 0;
+
+        boolean limited = exactMines || flagsAvailable < countBlocks;
+        width = limited ? Math.min(countBlocks, flagsAvailable) + 1 : 1;
+        unit = limited ? 1 : 0;
+
+        cache = countBlocks >= CACHE_FROM ? new HashMap<>() : null;
+        cacheSize = 0;
+        for (int i = 0; i < countBlocks; i++) order[i] = i;
+        double[] counts;
+        try {
+            counts = combine(0, countBlocks);
+        } finally {
+            cache = null; // the next region has other pieces anyway
+        }
+
+        double solutions = 0;
+        for (int k = 0; k < width; k++) {
+
+            // We don't have the exact mine count, so no
+            if (exactMines && k != flagsAvailable) continue;
+
+            solutions += counts[k];
+            for (int i = 0; i < countBlocks; i++) mineCounts[i] += counts[(i + 1) * width + k];
+        }
+        return solutions;
+    }
+
+    /**
+     * Builds the constraints of a region
+     */
+    private void prepare(ArrayList<Point> region) {
+        int countColumn = field.getCountColumn(), countRow = field.getCountRow();
+
+        countBlocks = region.size();
+        blockConstraints = new int[countBlocks * 8];
+        Arrays.fill(blockConstraints, -1);
+        order = new int[countBlocks];
+        where = new int[countBlocks];
+        seen = new int[countBlocks];
+        queue = new int[countBlocks];
+        state = new byte[countBlocks];
+        trail = new int[countBlocks];
+        countTrail = 0;
+
+        // Find the numbers around the region, indices[] maps the block to its constraint
+        int constraint = nextStamp();
+        countConstraints = 0;
+        ArrayList<Integer> constraints = new ArrayList<>();
+        for (int i = 0; i < countBlocks; i++) {
+            Point block = region.get(i);
+            int found = 0;
+
+            for (int nx = Math.max(0, block.x - 1); nx <= Math.min(countColumn - 1, block.x + 1); nx++) {
+                for (int ny = Math.max(0, block.y - 1); ny <= Math.min(countRow - 1, block.y + 1); ny++) {
+                    if (field.get(nx, ny).getVal() < 0) continue;
+
+                    int index = nx * countRow + ny;
+                    if (marks[index] != constraint) {
+                        marks[index] = constraint;
+                        indices[index] = countConstraints++;
+                        constraints.add(index);
+                    }
+                    blockConstraints[i * 8 + found++] = indices[index];
+                }
+            }
+        }
+
+        value = new int[countConstraints];
+        flagsAround = new int[countConstraints];
+        closedAround = new int[countConstraints];
+        minesAssigned = new int[countConstraints];
+        emptyAssigned = new int[countConstraints];
+        constraintBlocks = new int[countConstraints * 8];
+        Arrays.fill(constraintBlocks, -1);
+        constraintSeen = new int[countConstraints];
+        constraintStamp = 0;
+
+        for (int c = 0; c < countConstraints; c++) {
+            int x = constraints.get(c) / countRow, y = constraints.get(c) % countRow;
+            value[c] = field.get(x, y).getVal();
+
+            flagsAround[c] = field.getFlagsAround(x, y);
+            closedAround[c] = field.getClosedAround(x, y);
+        }
+
+        for (int i = 0; i < countBlocks; i++) {
+            for (int k = i * 8; k < i * 8 + 8 && blockConstraints[k] >= 0; k++) {
+                int c = blockConstraints[k] * 8;
+                while (constraintBlocks[c] >= 0) c++;
+                constraintBlocks[c] = i;
+            }
+        }
+    }
+
+    /**
+     * Counts the blocks order[from] to order[to - 1], which can be in several pieces
+     *
+     * @return the solutions per amount of mines (width entries),
+     * then the same for each block but only the solutions with a mine on it, in the order the blocks came in
+     */
+    private double[] combine(int from, int to) {
+        int count = to - from;
+        int[] blocks = Arrays.copyOfRange(order, from, to);
+        double[] result = new double[(count + 1) * width];
+        if (count == 0) {
+            result[0] = 1;
+            return result;
+        }
+
+        int[] bounds = split(from, to);
+        int countPieces = bounds.length - 1;
+        int[][] pieceBlocks = new int[countPieces][];
+        double[][] pieces = new double[countPieces][];
+        for (int p = 0; p < countPieces; p++) {
+            pieceBlocks[p] = Arrays.copyOfRange(order, bounds[p], bounds[p + 1]);
+            pieces[p] = count(bounds[p], bounds[p + 1]);
+        }
+
+        // A mine on a block of a piece goes with every solution of all the other pieces,
+        // before and after are the solutions of the pieces in front and behind of it
+        double[][] after = new double[countPieces + 1][];
+        after[countPieces] = new double[width];
+        after[countPieces][0] = 1;
+        for (int p = countPieces - 1; p >= 0; p--) after[p] = convolve(pieces[p], 0, after[p + 1]);
+
+        System.arraycopy(after[0], 0, result, 0, width);
+        for (int i = 0; i < count; i++) where[blocks[i]] = i;
+
+        double[] before = after[countPieces];
+        for (int p = 0; p < countPieces; p++) {
+            double[] others = convolve(before, 0, after[p + 1]);
+            for (int i = 0; i < pieceBlocks[p].length; i++) {
+                double[] withMine = convolve(pieces[p], (i + 1) * width, others);
+                System.arraycopy(withMine, 0, result, (where[pieceBlocks[p][i]] + 1) * width, width);
+            }
+            before = convolve(pieces[p], 0, before);
+        }
+
+        return result;
+    }
+
+    /**
+     * Counts the blocks order[from] to order[to - 1], which are connected
+     * One block gets a mine (or none), everything that follows from that too, and the rest is counted with combine
+     *
+     * @return like combine
+     */
+    private double[] count(int from, int to) {
+        int count = to - from;
+
+        // Out of time, the counts don't matter anymore
+        if (expired || System.nanoTime() > deadline) {
+            expired = true;
+            return new double[(count + 1) * width];
+        }
+
+        int[] blocks = Arrays.copyOfRange(order, from, to);
+
+        // The same piece with the same mines missing around it has the same counts
+        Piece piece = null;
+        if (cache != null) {
+            piece = new Piece(blocks);
+            double[] known = cache.get(piece);
+            if (known != null) return piece.toOrder(known, blocks);
+        }
+
+        double[] result = new double[(count + 1) * width];
+
+        // Small pieces are faster to just go through
+        if (count <= SMALL_PIECE) enumerate(blocks, 0, 0, result);
+        else branch(blocks, from, to, result);
+
+        if (piece != null && !expired) {
+            if (cacheSize + result.length > CACHE_SIZE) {
+                cache.clear();
+                cacheSize = 0;
+            }
+            cache.put(piece, piece.fromOrder(result, blocks));
+            cacheSize += result.length;
+        }
+        return result;
+    }
+
+    /**
+     * Counts a piece by giving one block a value, see count
+     */
+    private void branch(int[] blocks, int from, int to, double[] result) {
+        int count = to - from;
+
+        // The blocks are in the order split found them, so in a chain the middle one cuts it in half
+        int block = blocks[count / 2];
+
+        for (int value = 0; value < 2; value++) {
+            boolean isMine = value == 0;
+            int start = countTrail;
+
+            if (assign(block, isMine) && propagate(start)) {
+                int rest = from;
+                for (int b : blocks) if (state[b] == OPEN) order[rest++] = b;
+                int[] restBlocks = Arrays.copyOfRange(order, from, rest);
+                double[] counts = combine(from, rest);
+
+                int mines = 0;
+                for (int t = start; t < countTrail; t++) if (state[trail[t]] == MINE) mines++;
+                int shift = mines * unit;
+
+                for (int i = 0; i < count; i++) where[blocks[i]] = i;
+                addShifted(counts, 0, result, 0, shift);
+                for (int t = start; t < countTrail; t++)
+                    if (state[trail[t]] == MINE) addShifted(counts, 0, result, (where[trail[t]] + 1) * width, shift);
+                for (int i = 0; i < restBlocks.length; i++)
+                    addShifted(counts, (i + 1) * width, result, (where[restBlocks[i]] + 1) * width, shift);
+            }
+
+            while (countTrail > start) unassign(trail[--countTrail]);
+        }
+    }
+
+    /**
+     * Goes through all the combinations of mines on the blocks, the old fashioned way
+     *
+     * @param depth  which block we're at
+     * @param mines  how many mines we placed so far
+     * @param result gets the counts, like combine
+     */
+    private void enumerate(int[] blocks, int depth, int mines, double[] result) {
+
+        // We have too many flags
+        if (mines * unit >= width) return;
+
+        // Solution found!
+        if (depth == blocks.length) {
+            int k = mines * unit;
+            result[k]++;
+            for (int i = 0; i < blocks.length; i++) if (state[blocks[i]] == MINE) result[(i + 1) * width + k]++;
+            return;
+        }
+
+        // Recurse two positions: mine and no mine
+        if (assign(blocks[depth], true)) enumerate(blocks, depth + 1, mines + 1, result);
+        unassign(trail[--countTrail]);
+
+        if (assign(blocks[depth], false)) enumerate(blocks, depth + 1, mines, result);
+        unassign(trail[--countTrail]);
+    }
+
+    /**
+     * Gives every block its value, where a number around an assigned block leaves only one choice
+     *
+     * @param start the first assignment on the trail to look at
+     * @return false if a number can't be satisfied anymore
+     */
+    private boolean propagate(int start) {
+        for (int t = start; t < countTrail; t++) {
+            int block = trail[t];
+
+            for (int k = block * 8; k < block * 8 + 8 && blockConstraints[k] >= 0; k++) {
+                int c = blockConstraints[k];
+                int open = closedAround[c] - minesAssigned[c] - emptyAssigned[c];
+                if (open == 0) continue;
+
+                int missing = value[c] - flagsAround[c] - minesAssigned[c];
+                if (missing != 0 && missing != open) continue;
+
+                // Either all the open blocks around are mines or none is
+                for (int n = c * 8; n < c * 8 + 8 && constraintBlocks[n] >= 0; n++) {
+                    if (state[constraintBlocks[n]] != OPEN) continue;
+                    if (!assign(constraintBlocks[n], missing != 0)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the blocks order[from] to order[to - 1] into pieces which don't share a number with an open spot
+     * The blocks outside are assigned already, so they don't connect anything anymore.
+     *
+     * @return where each piece starts, and where the last one ends
+     */
+    private int[] split(int from, int to) {
+        int member = ++seenStamp;
+        int found = ++seenStamp;
+        for (int i = from; i < to; i++) seen[order[i]] = member;
+
+        int[] bounds = new int[to - from + 1];
+        int countPieces = 0;
+        int tail = 0;
+
+        for (int i = from; i < to; i++) {
+            int first = order[i];
+            if (seen[first] != member) continue;
+
+            bounds[countPieces++] = from + tail;
+            int head = tail;
+            queue[tail++] = first;
+            seen[first] = found;
+
+            while (head < tail) {
+                int block = queue[head++];
+                for (int k = block * 8; k < block * 8 + 8 && blockConstraints[k] >= 0; k++) {
+                    int c = blockConstraints[k] * 8;
+                    for (int n = c; n < c + 8 && constraintBlocks[n] >= 0; n++) {
+                        if (seen[constraintBlocks[n]] != member) continue;
+                        seen[constraintBlocks[n]] = found;
+                        queue[tail++] = constraintBlocks[n];
+                    }
+                }
+            }
+        }
+
+        System.arraycopy(queue, 0, order, from, to - from);
+        bounds[countPieces] = to;
+        return Arrays.copyOf(bounds, countPieces + 1);
+    }
+
+    /**
+     * @return the counts of a (width entries from offset) and b together, per amount of mines
+     */
+    private double[] convolve(double[] a, int offset, double[] b) {
+        double[] result = new double[width];
+        for (int i = 0; i < width; i++) {
+            if (a[offset + i] == 0) continue;
+            for (int j = 0; i + j < width; j++) result[i + j] += a[offset + i] * b[j];
+        }
+        return result;
+    }
+
+    private void addShifted(double[] from, int fromOffset, double[] to, int toOffset, int shift) {
+        for (int k = 0; k + shift < width; k++) to[toOffset + k + shift] += from[fromOffset + k];
+    }
+
+    /**
+     * A piece of the region as it is now: its blocks and how many mines the numbers around it still miss
+     * The counts of a piece are kept with the blocks sorted, as a piece can come in any order.
+     */
+    private class Piece {
+
+        final int countBlocks;
+        final int[] key; // the sorted blocks, then the missing mines of the numbers around in the order of the numbers
+        final int hash;
+
+        Piece(int[] blocks) {
+            countBlocks = blocks.length;
+            int[] constraints = new int[blocks.length * 8];
+            int countConstraints = 0;
+            int seen = ++constraintStamp;
+            for (int block : blocks) {
+                for (int k = block * 8; k < block * 8 + 8 && blockConstraints[k] >= 0; k++) {
+                    int c = blockConstraints[k];
+                    if (constraintSeen[c] == seen) continue;
+                    constraintSeen[c] = seen;
+                    constraints[countConstraints++] = c;
+                }
+            }
+            Arrays.sort(constraints, 0, countConstraints);
+
+            key = Arrays.copyOf(blocks, blocks.length + countConstraints);
+            Arrays.sort(key, 0, blocks.length);
+            for (int i = 0; i < countConstraints; i++) {
+                int c = constraints[i];
+                key[blocks.length + i] = value[c] - flagsAround[c] - minesAssigned[c];
+            }
+            hash = Arrays.hashCode(key);
+        }
+
+        /**
+         * @return the counts with the blocks in the given order instead of sorted
+         */
+        double[] toOrder(double[] counts, int[] blocks) {
+            double[] result = new double[counts.length];
+            System.arraycopy(counts, 0, result, 0, width);
+            for (int i = 0; i < countBlocks; i++) where[blocks[i]] = i;
+            for (int i = 0; i < countBlocks; i++)
+                System.arraycopy(counts, (i + 1) * width, result, (where[key[i]] + 1) * width, width);
+            return result;
+        }
+
+        /**
+         * @return the counts with the blocks sorted
+         */
+        double[] fromOrder(double[] counts, int[] blocks) {
+            double[] result = new double[counts.length];
+            System.arraycopy(counts, 0, result, 0, width);
+            for (int i = 0; i < countBlocks; i++) where[key[i]] = i;
+            for (int i = 0; i < countBlocks; i++)
+                System.arraycopy(counts, (i + 1) * width, result, (where[blocks[i]] + 1) * width, width);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Piece && ((Piece) o).countBlocks == countBlocks && Arrays.equals(((Piece) o).key, key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /**
+     * Places a mine (or none) on a block and checks the constraints around it
+     * The block goes on the trail, so it can be taken back with unassign
+     *
+     * @return false if it is already inconsistent
+     */
+    private boolean assign(int block, boolean isMine) {
+        state[block] = isMine ? MINE : EMPTY;
+        trail[countTrail++] = block;
+
+        boolean consistent = true;
+        for (int k = block * 8; k < block * 8 + 8 && blockConstraints[k] >= 0; k++) {
+            int c = blockConstraints[k];
+            if (isMine) {
+                // Scenario 1: too many mines
+                if (flagsAround[c] + ++minesAssigned[c] > value[c]) consistent = false;
+            } else {
+                // Scenario 2: too many empty
+                if (flagsAround[c] + closedAround[c] - ++emptyAssigned[c] < value[c]) consistent = false;
+            }
+        }
+        return consistent;
+    }
+
+    private void unassign(int block) {
+        boolean isMine = state[block] == MINE;
+        state[block] = OPEN;
+
+        for (int k = block * 8; k < block * 8 + 8 && blockConstraints[k] >= 0; k++) {
+            if (isMine) minesAssigned[blockConstraints[k]]--;
+            else emptyAssigned[blockConstraints[k]]--;
+        }
+    }
+
+    private int nextStamp() {
+        return ++stamp;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares as many pixels at once as the cpu can
+ * <p>
+ * Needs the incubator module: javac/java --add-modules jdk.incubator.vector
+ * Only ever created through {@link PixelMatcher#vector()}, which falls back if the module isn't there.
+ */
+class VectorPixelMatcher implements PixelMatcher {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // The pixel values and the states they stand for, BLOCK_EMPTY first since it will happen most often
+    private static final int[] PIXELS = {Board.BLOCK_EMPTY, Board.BLOCK_ONE, Board.BLOCK_TWO, Board.BLOCK_THREE, Board.BLOCK_FOUR,
+            Board.BLOCK_FIVE, Board.BLOCK_SIX, Board.BLOCK_SEVEN, Board.BLOCK_EIGHT, Board.BLOCK_FLAG, Board.BLOCK_MINE_EXPLODED};
+    private static final State[] STATES = {State.BLOCK_EMPTY, State.BLOCK_ONE, State.BLOCK_TWO, State.BLOCK_THREE, State.BLOCK_FOUR,
+            State.BLOCK_FIVE, State.BLOCK_SIX, State.BLOCK_SEVEN, State.BLOCK_EIGHT, State.BLOCK_FLAG, State.BLOCK_MINE_EXPLODED};
+
+    // Picks the first pixel of each block out of a row
+    private static final int[] BLOCK_STARTS = new int[LANES];
+
+    static {
+        for (int i = 0; i < LANES; i++) BLOCK_STARTS[i] = i * Board.BLOCK_SIDE;
+    }
+
+    private final ScalarPixelMatcher scalar = new ScalarPixelMatcher();
+
+    @Override
+    public int find(int[] pixels, int from, int to, int[] signature) {
+        IntVector first = IntVector.broadcast(SPECIES, signature[0]);
+
+        // Look for the first pixel in LANES positions at once, only check the rest where it matched
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            long hits = IntVector.fromArray(SPECIES, pixels, i).compare(VectorOperators.EQ, first).toLong();
+            while (hits != 0) {
+                int position = i + Long.numberOfTrailingZeros(hits);
+                if (matches(pixels, position, signature, 1)) return position;
+                hits &= hits - 1;
+            }
+        }
+
+        return scalar.find(pixels, i, to, signature);
+    }
+
+    @Override
+    public boolean matches(int[] pixels, int offset, int[] signature, int skip) {
+        if (signature.length % LANES != 0) return scalar.matches(pixels, offset, signature, skip);
+
+        // 16 pixels are one or two comparisons, depending on the cpu
+        for (int i = 0; i < signature.length; i += LANES) {
+            long equal = IntVector.fromArray(SPECIES, pixels, offset + i)
+                    .compare(VectorOperators.EQ, IntVector.fromArray(SPECIES, signature, i)).toLong();
+            if (i < skip) equal |= (1L << Math.min(LANES, skip - i)) - 1;
+            if (equal != (1L << LANES) - 1) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void classify(int[] pixels, int offset, int count, int[] states) {
+        int closed = State.BLOCK_CLOSED.ordinal();
+
+        int i = 0;
+        // The gather needs the whole last block in the array
+        for (; i + LANES <= count && offset + (i + LANES - 1) * Board.BLOCK_SIDE < pixels.length; i += LANES) {
+            IntVector block = IntVector.fromArray(SPECIES, pixels, offset + i * Board.BLOCK_SIDE, BLOCK_STARTS, 0);
+            IntVector result = IntVector.broadcast(SPECIES, closed);
+            for (int k = 0; k < PIXELS.length; k++) {
+                result = result.blend(STATES[k].ordinal(), block.compare(VectorOperators.EQ, PIXELS[k]));
+            }
+            result.intoArray(states, i);
+        }
+
+        for (; i < count; i++) states[i] = Board.read(pixels[offset + i * Board.BLOCK_SIDE]).ordinal();
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2015 Patrick Stillhart
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gets the solver compiled before the first real game
+ * <p>
+ * Right after the start everything runs in the interpreter, that's why the first game used to be slower than the rest.
+ * While the game is being located, games in memory are played in the background until a round doesn't get
+ * any faster anymore (or MAX_TIME is up). After each game its screenshot is drawn and read again like
+ * a real one (see ImageBoard), so the classifier gets compiled as well.
+ */
+class WarmUp {
+
+    // How long we warm up at most, in milliseconds
+    static final int MAX_TIME = 3000;
+    // A round is done when it's less than 10% faster than the best one so far, this many times in a row
+    private static final int STABLE_ROUNDS = 3;
+    private static final int GAMES_PER_ROUND = 4;
+
+    private final Thread thread;
+    private volatile long time;
+    private volatile int rounds;
+
+    private WarmUp() {
+        thread = new Thread(this::run, "Warm-up");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts warming up in the background
+     *
+     * @return the warm-up, to wait for it
+     */
+    static WarmUp start() {
+        WarmUp warmUp = new WarmUp();
+        warmUp.thread.start();
+        return warmUp;
+    }
+
+    /**
+     * Waits until everything is warm
+     *
+     * @return this
+     * @throws InterruptedException if someone doesn't want us to wait
+     */
+    WarmUp finish() throws InterruptedException {
+        thread.join();
+        return this;
+    }
+
+    /**
+     * @return how long the warm-up took in milliseconds
+     */
+    long getTime() {
+        return time;
+    }
+
+    /**
+     * @return how many rounds were played
+     */
+    int getRounds() {
+        return rounds;
+    }
+
+    private void run() {
+        long start = System.nanoTime(), end = start + MAX_TIME * 1_000_000L;
+        long best = Long.MAX_VALUE;
+        int stable = 0;
+        long seed = 1000; // not the ones the benchmarks play
+
+        while (stable < STABLE_ROUNDS && System.nanoTime() < end) {
+            long round = System.nanoTime();
+            for (int game = 0; game < GAMES_PER_ROUND; game++) play(seed++);
+            round = System.nanoTime() - round;
+
+            if (round < best * 0.9) stable = 0;
+            else stable++;
+            best = Math.min(best, round);
+            rounds++;
+        }
+
+        time = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Plays an expert game in memory and reads it back from a drawn screenshot
+     */
+    private static void play(long seed) {
+        MemoryBoard game = MemoryBoard.random(30, 16, 99, seed);
+        MineSweeperSolver solver = new MineSweeperSolver(game);
+        solver.setQuiet(true);
+        solver.setGuessing(seed % 2 == 0);
+        solver.play();
+
+        try {
+            List<BufferedImage> frames = new ArrayList<>();
+            frames.add(draw(new Field(game.getCountColumn(), game.getCountRow())));
+            frames.add(draw(game.getField()));
+            ImageBoard board = new ImageBoard(frames, 99);
+            // Every frame is read once
+            for (int read = 0; read < board.getCountFrames(); read++) board.refresh();
+        } catch (Board.BoardException e) {
+            // An exploded mine, that's read as well
+        }
+    }
+
+    /**
+     * Draws the game like it is on the screen, as far as the board reads it
+     * That's the first row of each block, all closed blocks have the pixels of BLOCK_CLOSED.
+     *
+     * @param field the game
+     * @return the screenshot
+     */
+    static BufferedImage draw(Field field) {
+        int width = field.getCountColumn() * Board.BLOCK_SIDE, height = (field.getCountRow() + 1) * Board.BLOCK_SIDE;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[width];
+
+        for (int y = 0; y < field.getCountRow(); y++) {
+            for (int x = 0; x < field.getCountColumn(); x++) {
+                State state = field.get(x, y);
+                for (int i = 0; i < Board.BLOCK_SIDE; i++)
+                    row[x * Board.BLOCK_SIDE + i] = state == State.BLOCK_CLOSED ? Board.BLOCK_CLOSED[i] : Board.pixel(state);
+            }
+            image.setRGB(0, y * Board.BLOCK_SIDE, width, 1, row, 0, width);
+        }
+
+        return image;
+    }
+
+}